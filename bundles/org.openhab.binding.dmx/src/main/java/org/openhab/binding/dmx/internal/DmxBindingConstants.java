@@ -53,6 +53,7 @@ public class DmxBindingConstants {
     public static final String CONFIG_ADDRESS = "address";
     public static final String CONFIG_LOCAL_ADDRESS = "localaddress";
     public static final String CONFIG_REFRESH_MODE = "refreshmode";
+    public static final String CONFIG_KEEPALIVE = "keepalive";
 
     public static final String CONFIG_DIMMER_TYPE = "dimmertype";
     public static final String CONFIG_DIMMER_FADE_TIME = "fadetime";
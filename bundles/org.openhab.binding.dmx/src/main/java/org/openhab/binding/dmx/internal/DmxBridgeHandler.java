@@ -50,6 +50,7 @@ import org.slf4j.LoggerFactory;
 
 public abstract class DmxBridgeHandler extends BaseBridgeHandler {
     public static final int DEFAULT_REFRESH_RATE = 20;
+    private static final int STATISTICS_LOG_FRAMES = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(DmxBridgeHandler.class);
 
@@ -59,6 +60,9 @@ public abstract class DmxBridgeHandler extends BaseBridgeHandler {
     private boolean isMuted = false;
     private int refreshTime = 1000 / DEFAULT_REFRESH_RATE;
 
+    private final FrameStatistics frameStatistics = new FrameStatistics();
+    private long frameDeadline = 0;
+
     public DmxBridgeHandler(Bridge dmxBridge) {
         super(dmxBridge);
     }
@@ -145,9 +149,52 @@ public abstract class DmxBridgeHandler extends BaseBridgeHandler {
 
     /**
      * send the buffer of the current universe
+     *
+     * the buffer has already been calculated for this frame if the bridge is online
      */
     protected abstract void sendDmxData();
 
+    /**
+     * calculate and send a single frame, called by the frame scheduler
+     */
+    private void sendFrame() {
+        logger.trace("runnable packet sender for universe {} called, state {}/{}", universe.getUniverseId(),
+                getThing().getStatus(), isMuted);
+        if (isMuted) {
+            logger.trace("bridge {} is muted", getThing().getUID());
+            frameDeadline = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (frameDeadline == 0) {
+            frameDeadline = start;
+        }
+        frameDeadline += TimeUnit.MILLISECONDS.toNanos(refreshTime);
+
+        if (getThing().getStatus() == ThingStatus.ONLINE) {
+            universe.calculateBuffer(System.currentTimeMillis());
+        }
+        long computed = System.nanoTime();
+        sendDmxData();
+        long end = System.nanoTime();
+
+        frameStatistics.recordFrame(computed - start, end - computed, end > frameDeadline);
+        if (frameStatistics.getFrames() % STATISTICS_LOG_FRAMES == 0) {
+            logger.debug("frame statistics for bridge {} ({} active channels): {}", getThing().getUID(),
+                    universe.getActiveChannelCount(), frameStatistics);
+        }
+    }
+
+    /**
+     * get the frame timing statistics of this bridge
+     *
+     * @return the statistics
+     */
+    public FrameStatistics getFrameStatistics() {
+        return frameStatistics;
+    }
+
     /**
      * install the sending and updating scheduler
      */
@@ -156,15 +203,8 @@ public abstract class DmxBridgeHandler extends BaseBridgeHandler {
             uninstallScheduler();
         }
         if (refreshTime > 0) {
-            senderJob = scheduler.scheduleAtFixedRate(() -> {
-                logger.trace("runnable packet sender for universe {} called, state {}/{}", universe.getUniverseId(),
-                        getThing().getStatus(), isMuted);
-                if (!isMuted) {
-                    sendDmxData();
-                } else {
-                    logger.trace("bridge {} is muted", getThing().getUID());
-                }
-            }, 1, refreshTime, TimeUnit.MILLISECONDS);
+            frameDeadline = 0;
+            senderJob = DmxFrameScheduler.scheduleFrames(this::sendFrame, refreshTime);
             logger.trace("started scheduler for thing {}", this.thing.getUID());
         } else {
             logger.info("refresh disabled for thing {}", this.thing.getUID());
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.dmx.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.ThreadPoolManager;
+
+/**
+ * The {@link DmxFrameScheduler} runs the frames (calculation and sending) of all DMX bridges on a dedicated,
+ * binding-wide thread pool, so the universes of different bridges are sent in parallel and are not delayed by other
+ * jobs of the shared thing handler pool. The pool is managed by the {@link ThreadPoolManager}, its size can be
+ * configured with the thread pool name {@value #THREAD_POOL_NAME}.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class DmxFrameScheduler {
+    public static final String THREAD_POOL_NAME = "dmx-frame";
+
+    private DmxFrameScheduler() {
+        // only static methods
+    }
+
+    /**
+     * schedule the frames of a bridge
+     *
+     * @param frame the task calculating and sending a single frame
+     * @param refreshTime time in ms between two frames
+     * @return the future to cancel the frames
+     */
+    public static ScheduledFuture<?> scheduleFrames(Runnable frame, int refreshTime) {
+        ScheduledExecutorService pool = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME);
+        return pool.scheduleAtFixedRate(frame, 1, refreshTime, TimeUnit.MILLISECONDS);
+    }
+}
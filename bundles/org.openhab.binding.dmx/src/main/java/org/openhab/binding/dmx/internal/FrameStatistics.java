@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.dmx.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link FrameStatistics} collects the timing of the frames sent by a DMX bridge
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class FrameStatistics {
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong missedDeadlines = new AtomicLong();
+    private final AtomicLong computeTimeTotal = new AtomicLong();
+    private final AtomicLong computeTimeMax = new AtomicLong();
+    private final AtomicLong sendTimeTotal = new AtomicLong();
+    private final AtomicLong sendTimeMax = new AtomicLong();
+
+    /**
+     * record a sent frame
+     *
+     * @param computeTime time in ns needed to calculate the universe buffer
+     * @param sendTime time in ns needed to send the universe
+     * @param missedDeadline true if the frame was finished after the next frame should have started
+     */
+    public void recordFrame(long computeTime, long sendTime, boolean missedDeadline) {
+        frames.incrementAndGet();
+        computeTimeTotal.addAndGet(computeTime);
+        computeTimeMax.accumulateAndGet(computeTime, Math::max);
+        sendTimeTotal.addAndGet(sendTime);
+        sendTimeMax.accumulateAndGet(sendTime, Math::max);
+        if (missedDeadline) {
+            missedDeadlines.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of frames
+     */
+    public long getFrames() {
+        return frames.get();
+    }
+
+    /**
+     * @return the number of frames that were not finished in time
+     */
+    public long getMissedDeadlines() {
+        return missedDeadlines.get();
+    }
+
+    /**
+     * @return the average time in µs needed to calculate a frame
+     */
+    public double getAverageComputeTime() {
+        return average(computeTimeTotal);
+    }
+
+    /**
+     * @return the longest time in µs needed to calculate a frame
+     */
+    public long getMaxComputeTime() {
+        return TimeUnit.NANOSECONDS.toMicros(computeTimeMax.get());
+    }
+
+    /**
+     * @return the average time in µs needed to send a frame
+     */
+    public double getAverageSendTime() {
+        return average(sendTimeTotal);
+    }
+
+    /**
+     * @return the longest time in µs needed to send a frame
+     */
+    public long getMaxSendTime() {
+        return TimeUnit.NANOSECONDS.toMicros(sendTimeMax.get());
+    }
+
+    private double average(AtomicLong total) {
+        long count = frames.get();
+        return count == 0 ? 0 : total.get() / 1000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d frames, %d missed deadlines, compute %.1f/%d µs, send %.1f/%d µs (avg/max)",
+                getFrames(), getMissedDeadlines(), getAverageComputeTime(), getMaxComputeTime(),
+                getAverageSendTime(), getMaxSendTime());
+    }
+}
@@ -13,6 +13,7 @@
 package org.openhab.binding.dmx.internal.config;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.dmx.internal.dmxoverethernet.DmxOverEthernetHandler;
 
 /**
  * The {@link SacnBridgeHandlerConfiguration} is a helper class for the base thing handler configuration
@@ -27,4 +28,5 @@ public class SacnBridgeHandlerConfiguration {
     public String address = "";
     public String localaddress = "";
     public String refreshmode = "standard";
+    public int keepalive = DmxOverEthernetHandler.DEFAULT_KEEPALIVE_TIME;
 }
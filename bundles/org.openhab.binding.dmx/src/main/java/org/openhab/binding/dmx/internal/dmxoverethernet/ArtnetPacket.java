@@ -103,6 +103,11 @@ public class ArtnetPacket extends DmxOverEthernetPacket {
         setPayload(payload);
     }
 
+    @Override
+    protected int getPayloadOffset() {
+        return 18;
+    }
+
     @Override
     public int getPacketLength() {
         return (18 + this.payloadSize);
@@ -34,6 +34,8 @@ import org.slf4j.LoggerFactory;
  */
 
 public abstract class DmxOverEthernetHandler extends DmxBridgeHandler {
+    public static final int DEFAULT_KEEPALIVE_TIME = 800;
+
     private final Logger logger = LoggerFactory.getLogger(DmxOverEthernetHandler.class);
 
     protected DmxOverEthernetPacket packetTemplate;
@@ -41,9 +43,12 @@ public abstract class DmxOverEthernetHandler extends DmxBridgeHandler {
     protected List<IpNode> receiverNodes = new ArrayList<>();
 
     protected boolean refreshAlways = false;
+    protected int keepAliveTime = DEFAULT_KEEPALIVE_TIME;
 
     DatagramSocket socket = null;
+    private DatagramPacket sendPacket = null;
     private long lastSend = 0;
+    private long lastPayloadUpdate = -1;
     private int repeatCounter = 0;
     private int sequenceNo = 0;
 
@@ -90,21 +95,28 @@ public abstract class DmxOverEthernetHandler extends DmxBridgeHandler {
         if (getThing().getStatus() == ThingStatus.ONLINE) {
             boolean needsSending = false;
             long now = System.currentTimeMillis();
-            universe.calculateBuffer(now);
             if ((universe.getLastBufferChanged() > lastSend) || refreshAlways) {
                 needsSending = true;
                 repeatCounter = 0;
-            } else if (now - lastSend > 800) {
+            } else if (now - lastSend > keepAliveTime) {
                 needsSending = true;
             } else if (repeatCounter < 3) {
                 needsSending = true;
                 repeatCounter++;
             }
             if (needsSending) {
-                packetTemplate.setPayload(universe.getBuffer(), universe.getBufferSize());
+                if (sendPacket == null || sendPacket.getData() != packetTemplate.getRawPacket()) {
+                    sendPacket = new DatagramPacket(packetTemplate.getRawPacket(), packetTemplate.getPacketLength());
+                    lastPayloadUpdate = -1;
+                }
+                // the packet is only re-formatted if the universe changed, repeated frames just get a new sequence no.
+                if (universe.getLastBufferChanged() > lastPayloadUpdate
+                        || universe.getBufferSize() != packetTemplate.getPayloadSize()) {
+                    packetTemplate.setPayload(universe);
+                    lastPayloadUpdate = universe.getLastBufferChanged();
+                }
                 packetTemplate.setSequence(sequenceNo);
-                DatagramPacket sendPacket = new DatagramPacket(packetTemplate.getRawPacket(),
-                        packetTemplate.getPacketLength());
+                sendPacket.setLength(packetTemplate.getPacketLength());
                 for (IpNode receiverNode : receiverNodes) {
                     sendPacket.setAddress(receiverNode.getAddress());
                     sendPacket.setPort(receiverNode.getPort());
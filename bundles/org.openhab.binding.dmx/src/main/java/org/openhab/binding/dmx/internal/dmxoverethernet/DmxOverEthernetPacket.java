@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.dmx.internal.dmxoverethernet;
 
+import org.openhab.binding.dmx.internal.multiverse.Universe;
+
 /**
  * The {@link DmxOverEthernetPacket} is an abstract class for
  * DMX over Ethernet packets (ArtNet, sACN)
@@ -60,6 +62,26 @@ public abstract class DmxOverEthernetPacket {
      */
     public abstract void setPayload(byte[] payload, int payloadSize);
 
+    /**
+     * set payload data directly from the universe buffer, without allocating an intermediate array
+     *
+     * @param universe the universe containing the DMX channel data
+     */
+    public void setPayload(Universe universe) {
+        int bufferSize = universe.getBufferSize();
+        if (bufferSize != this.payloadSize) {
+            setPayloadSize(bufferSize);
+        }
+        universe.copyBuffer(rawPacket, getPayloadOffset(), payloadSize);
+    }
+
+    /**
+     * get position of the DMX payload in the raw packet
+     *
+     * @return offset of the first DMX channel
+     */
+    protected abstract int getPayloadOffset();
+
     /**
      * get packet for transmission
      *
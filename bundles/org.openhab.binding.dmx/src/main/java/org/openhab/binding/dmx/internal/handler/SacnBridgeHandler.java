@@ -85,6 +85,8 @@ public class SacnBridgeHandler extends DmxOverEthernetHandler {
 
         refreshAlways = configuration.refreshmode.equals("always");
         logger.debug("refresh mode set to always: {}", refreshAlways);
+        keepAliveTime = configuration.keepalive;
+        logger.debug("keep-alive time set to {} ms", keepAliveTime);
 
         updateStatus(ThingStatus.UNKNOWN);
         super.updateConfiguration();
@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 import org.openhab.binding.dmx.internal.DmxBindingConstants.ListenerType;
 import org.openhab.binding.dmx.internal.DmxThingHandler;
@@ -59,6 +60,7 @@ public class DmxChannel extends BaseDmxChannel {
     private final Map<ChannelUID, DmxThingHandler> onOffListeners = new HashMap<>();
     private final Map<ChannelUID, DmxThingHandler> valueListeners = new HashMap<>();
     private Entry<ChannelUID, DmxThingHandler> actionListener = null;
+    private Consumer<DmxChannel> activationListener = null;
 
     public DmxChannel(int universeId, int dmxChannelId, int refreshTime) {
         super(universeId, dmxChannelId);
@@ -103,6 +105,31 @@ public class DmxChannel extends BaseDmxChannel {
         return !registeredThings.isEmpty();
     }
 
+    /**
+     * set the listener that is notified when this channel needs to be calculated again (value or actions changed)
+     *
+     * @param activationListener the listener, usually the universe of this channel
+     */
+    void setActivationListener(Consumer<DmxChannel> activationListener) {
+        this.activationListener = activationListener;
+    }
+
+    private void activate() {
+        Consumer<DmxChannel> activationListener = this.activationListener;
+        if (activationListener != null) {
+            activationListener.accept(this);
+        }
+    }
+
+    /**
+     * check if this channel needs no further calculation until its value or actions are changed
+     *
+     * @return true if there are no running actions and all listeners have been updated
+     */
+    public synchronized boolean isIdle() {
+        return !hasRunningActions() && lastStateValue == value;
+    }
+
     /**
      * set a DMX channel value
      *
@@ -111,6 +138,7 @@ public class DmxChannel extends BaseDmxChannel {
     public void setValue(int value) {
         this.value = Util.toDmxValue(value) << 8;
         logger.trace("set dmx channel {} to value {}", this, this.value >> 8);
+        activate();
     }
 
     /**
@@ -121,6 +149,7 @@ public class DmxChannel extends BaseDmxChannel {
     public void setValue(PercentType value) {
         this.value = Util.toDmxValue(value) << 8;
         logger.trace("set dmx channel {} to value {}", this, this.value >> 8);
+        activate();
     }
 
     /**
@@ -175,6 +204,7 @@ public class DmxChannel extends BaseDmxChannel {
                 logger.trace("resuming suspended value for DMX channel {}", this);
             }
             isSuspended = false;
+            activate();
         } else {
             throw new IllegalStateException("trying to resume actions in non-suspended DMX channel " + this.toString());
         }
@@ -211,6 +241,7 @@ public class DmxChannel extends BaseDmxChannel {
         clearAction();
         actions.add(channelAction);
         logger.trace("set action {} for DMX channel {}", channelAction, this);
+        activate();
     }
 
     /**
@@ -221,6 +252,7 @@ public class DmxChannel extends BaseDmxChannel {
     public synchronized void addChannelAction(BaseAction channelAction) {
         actions.add(channelAction);
         logger.trace("added action {} to channel {} (total {} actions)", channelAction, this, actions.size());
+        activate();
     }
 
     /**
@@ -243,6 +275,7 @@ public class DmxChannel extends BaseDmxChannel {
         action.reset();
         actions.add(action);
         logger.trace("switching to next action {} on channel {}", actions.get(0), this);
+        activate();
     }
 
     /**
@@ -15,6 +15,8 @@ package org.openhab.binding.dmx.internal.multiverse;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.openhab.core.thing.Thing;
@@ -39,12 +41,14 @@ public class Universe {
     private int bufferSize = MIN_UNIVERSE_SIZE;
 
     private final short[] buffer = new short[MAX_UNIVERSE_SIZE];
+    private final byte[] frontBuffer = new byte[MAX_UNIVERSE_SIZE];
     private final short[] cie1931Curve = new short[DmxChannel.MAX_VALUE << 8 + 1];
 
     private long bufferChanged;
     private int refreshTime = DEFAULT_REFRESH_TIME;
 
     private final List<DmxChannel> channels = new ArrayList<>();
+    private final Set<DmxChannel> activeChannels = ConcurrentHashMap.newKeySet();
     private final List<Integer> applyCurve = new ArrayList<>();
 
     /**
@@ -101,6 +105,7 @@ public class Universe {
                 channel.unregisterThing(thing);
                 if (!channel.hasRegisteredThings()) {
                     channelIterator.remove();
+                    activeChannels.remove(channel);
                     logger.trace("Removing channel {}, no more things", channel);
                 }
             }
@@ -122,6 +127,8 @@ public class Universe {
                 if (channel.getChannelId() > bufferSize) {
                     bufferSize = channel.getChannelId();
                 }
+                channel.setActivationListener(activeChannels::add);
+                activeChannels.add(channel);
             } finally {
                 universeLock.unlock();
             }
@@ -171,15 +178,28 @@ public class Universe {
         }
     }
 
+    /**
+     * get the number of channels that need to be calculated in the next frame
+     *
+     * @return number of channels with running actions or changed values
+     */
+    public int getActiveChannelCount() {
+        return activeChannels.size();
+    }
+
     /**
      * calculate this universe buffer (run all channel actions) for a given time
      *
+     * Only channels with running actions or changed values are calculated, idle channels keep their value in the
+     * buffer until they are activated again.
+     *
      * @param time the timestamp used for calculation
      */
     public void calculateBuffer(long time) {
         universeLock.lock();
         try {
-            for (DmxChannel channel : channels) {
+            boolean changed = false;
+            for (DmxChannel channel : activeChannels) {
                 logger.trace("calculating new value for {}", channel);
                 int channelId = channel.getChannelId();
                 int vx = channel.getNewHiResValue(time);
@@ -191,9 +211,25 @@ public class Universe {
                 }
                 if (buffer[channelId - 1] != value) {
                     buffer[channelId - 1] = (short) value;
-                    bufferChanged = time;
+                    changed = true;
+                }
+                if (channel.isIdle()) {
+                    activeChannels.remove(channel);
+                    // the channel might have been activated again in the meantime
+                    if (!channel.isIdle()) {
+                        activeChannels.add(channel);
+                    }
                 }
             }
+            if (changed) {
+                // publish the finished frame, readers never see a partially calculated frame
+                synchronized (frontBuffer) {
+                    for (int i = 0; i < bufferSize; i++) {
+                        frontBuffer[i] = (byte) buffer[i];
+                    }
+                }
+                bufferChanged = time;
+            }
         } finally {
             universeLock.unlock();
         }
@@ -206,17 +242,23 @@ public class Universe {
      */
     public byte[] getBuffer() {
         byte[] b = new byte[bufferSize];
-        universeLock.lock();
-        try {
-            for (int i = 0; i < bufferSize; i++) {
-                b[i] = (byte) buffer[i];
-            }
-        } finally {
-            universeLock.unlock();
-        }
+        copyBuffer(b, 0, b.length);
         return b;
     }
 
+    /**
+     * copy the last calculated universe buffer to an existing array (e.g. the payload of a packet)
+     *
+     * @param target the array to copy the channel values to
+     * @param offset position of the first channel in the target array
+     * @param length number of channels to copy
+     */
+    public void copyBuffer(byte[] target, int offset, int length) {
+        synchronized (frontBuffer) {
+            System.arraycopy(frontBuffer, 0, target, offset, Math.min(length, MAX_UNIVERSE_SIZE));
+        }
+    }
+
     /**
      * set list of channels that should use the LED dim curve
      *
@@ -227,6 +269,13 @@ public class Universe {
         for (BaseDmxChannel channel : BaseDmxChannel.fromString(listString, universeId)) {
             applyCurve.add(channel.getChannelId());
         }
+        // values of all channels need to be calculated again with the new curve
+        universeLock.lock();
+        try {
+            activeChannels.addAll(channels);
+        } finally {
+            universeLock.unlock();
+        }
         logger.debug("applying dim curve in universe {} to channels {}", universeId, applyCurve);
     }
 
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.dmx.internal.multiverse;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openhab.binding.dmx.internal.action.FadeAction;
+import org.openhab.binding.dmx.internal.dmxoverethernet.ArtnetPacket;
+import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests cases for Universe
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class UniverseTest {
+
+    Universe universe;
+    DmxChannel dmxChannel;
+    long currentTime;
+
+    @BeforeEach
+    public void setup() {
+        Thing thing = Mockito.mock(Thing.class);
+        Mockito.when(thing.getUID()).thenReturn(new ThingUID("dmx:dimmer:test"));
+        universe = new Universe(1);
+        dmxChannel = universe.registerChannel(new BaseDmxChannel(1, 5), thing);
+        currentTime = System.currentTimeMillis();
+    }
+
+    @Test
+    public void bufferIsCopiedAfterCalculation() {
+        dmxChannel.setValue(125);
+        universe.calculateBuffer(currentTime);
+
+        byte[] frame = new byte[Universe.MAX_UNIVERSE_SIZE];
+        universe.copyBuffer(frame, 0, universe.getBufferSize());
+        assertThat(frame[4] & 0xFF, is(125));
+        assertThat(universe.getBuffer()[4] & 0xFF, is(125));
+        assertThat(universe.getLastBufferChanged(), is(currentTime));
+    }
+
+    @Test
+    public void unchangedFrameDoesNotUpdateTimestamp() {
+        dmxChannel.setValue(125);
+        universe.calculateBuffer(currentTime);
+        universe.calculateBuffer(currentTime + 50);
+
+        assertThat(universe.getLastBufferChanged(), is(currentTime));
+    }
+
+    @Test
+    public void packetPayloadIsWrittenInPlace() {
+        ArtnetPacket packet = new ArtnetPacket();
+        byte[] rawPacket = packet.getRawPacket();
+
+        dmxChannel.setValue(200);
+        universe.calculateBuffer(currentTime);
+        packet.setPayload(universe);
+
+        assertThat(packet.getRawPacket() == rawPacket, is(true));
+        assertThat(packet.getPayloadSize(), is(Universe.MIN_UNIVERSE_SIZE));
+        assertThat(packet.getPacketLength(), is(18 + Universe.MIN_UNIVERSE_SIZE));
+        assertThat(rawPacket[18 + 4] & 0xFF, is(200));
+    }
+
+    @Test
+    public void onlyActiveChannelsAreCalculated() {
+        assertThat(universe.getActiveChannelCount(), is(1));
+        universe.calculateBuffer(currentTime);
+        assertThat(universe.getActiveChannelCount(), is(0));
+
+        dmxChannel.setValue(50);
+        assertThat(universe.getActiveChannelCount(), is(1));
+        universe.calculateBuffer(currentTime + 50);
+        assertThat(universe.getBuffer()[4] & 0xFF, is(50));
+        // stays active until the state update was sent to the listeners (after the refresh time)
+        assertThat(universe.getActiveChannelCount(), is(1));
+        universe.calculateBuffer(currentTime + 1050);
+        assertThat(universe.getActiveChannelCount(), is(0));
+    }
+
+    @Test
+    public void channelStaysActiveWhileFading() {
+        universe.calculateBuffer(currentTime);
+        dmxChannel.setChannelAction(new FadeAction(1000, 255, -1));
+
+        universe.calculateBuffer(currentTime + 50);
+        universe.calculateBuffer(currentTime + 550);
+        assertThat(universe.getActiveChannelCount(), is(1));
+
+        universe.calculateBuffer(currentTime + 1100);
+        assertThat(universe.getBuffer()[4] & 0xFF, is(255));
+        assertThat(universe.getActiveChannelCount(), is(0));
+    }
+}
@@ -45,6 +45,7 @@ import org.slf4j.LoggerFactory;
 public class Ffmpeg {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private IpCameraHandler ipCameraHandler;
+    private FfmpegSupervisor ffmpegSupervisor;
     private @Nullable Process process = null;
     private String ffmpegCommand = "";
     private FFmpegFormat format;
@@ -52,12 +53,14 @@ public class Ffmpeg {
     private IpCameraFfmpegThread ipCameraFfmpegThread = new IpCameraFfmpegThread();
     private int keepAlive = 8;
     private String password;
+    private String supervisorKey;
 
     public Ffmpeg(IpCameraHandler handle, FFmpegFormat format, String ffmpegLocation, String inputArguments,
             String input, String outArguments, String output, String username, String password) {
         this.format = format;
         this.password = password;
         ipCameraHandler = handle;
+        ffmpegSupervisor = handle.ffmpegSupervisor;
         String altInput = input;
         // Input can be snapshots not just rtsp or http
         if (!password.isEmpty() && !input.contains("@") && input.contains("rtsp")) {
@@ -73,6 +76,28 @@ public class Ffmpeg {
         Collections.addAll(commandArrayList, ffmpegCommand.trim().split("\\s+"));
         // ffmpegLocation may have a space in its folder
         commandArrayList.add(0, ffmpegLocation);
+        switch (format) {
+            case HLS:
+            case MJPEG:
+            case SNAPSHOT:
+                // the same output can be shared
+                supervisorKey = String.join(" ", commandArrayList);
+                break;
+            default:
+                // the messages of FFmpeg are processed for this camera
+                supervisorKey = String.join(" ", commandArrayList) + "@" + System.identityHashCode(this);
+        }
+    }
+
+    public FFmpegFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the key of conversions that can share one FFmpeg process
+     */
+    public String getSupervisorKey() {
+        return supervisorKey;
     }
 
     public void setKeepAlive(int numberOfEightSeconds) {
@@ -166,42 +191,61 @@ public class Ffmpeg {
                     default:
                         break;
                 }
+                Ffmpeg next = ffmpegSupervisor.finished(Ffmpeg.this);
+                if (next != null) {
+                    next.startProcess();
+                }
             }
         }
     }
 
     public void startConverting() {
-        if (!ipCameraFfmpegThread.isAlive()) {
-            ipCameraFfmpegThread = new IpCameraFfmpegThread();
-            logger.debug("Starting ffmpeg with this command now:{}", ffmpegCommand.replaceAll(password, "********"));
-            ipCameraFfmpegThread.start();
-            if (format.equals(FFmpegFormat.HLS)) {
-                ipCameraHandler.setChannelState(CHANNEL_START_STREAM, OnOffType.ON);
-            }
+        if (ffmpegSupervisor.register(this)) {
+            startProcess();
         }
         if (keepAlive != -1) {
             keepAlive = 8;
         }
     }
 
+    /**
+     * starts the FFmpeg process, called once the {@link FfmpegSupervisor} allows it
+     */
+    void startProcess() {
+        ipCameraFfmpegThread = new IpCameraFfmpegThread();
+        logger.debug("Starting ffmpeg with this command now:{}", ffmpegCommand.replaceAll(password, "********"));
+        ipCameraFfmpegThread.start();
+        if (format.equals(FFmpegFormat.HLS)) {
+            ipCameraHandler.setChannelState(CHANNEL_START_STREAM, OnOffType.ON);
+        }
+    }
+
     public boolean getIsAlive() {
         Process localProcess = process;
-        if (localProcess != null) {
-            return localProcess.isAlive();
+        if (localProcess != null && localProcess.isAlive()) {
+            return true;
         }
-        return false;
+        return ffmpegSupervisor.isSharing(this);
     }
 
     public void stopConverting() {
-        if (ipCameraFfmpegThread.isAlive()) {
+        boolean running = ipCameraFfmpegThread.isAlive() || ffmpegSupervisor.isSharing(this);
+        Ffmpeg owner = ffmpegSupervisor.unregister(this);
+        if (running) {
             logger.debug("Stopping ffmpeg {} now when keepalive is:{}", format, keepAlive);
-            Process localProcess = process;
-            if (localProcess != null) {
-                localProcess.destroyForcibly();
+            if (owner != null) {
+                owner.destroyProcess();
             }
             if (format.equals(FFmpegFormat.HLS)) {
                 ipCameraHandler.setChannelState(CHANNEL_START_STREAM, OnOffType.OFF);
             }
         }
     }
+
+    private void destroyProcess() {
+        Process localProcess = process;
+        if (localProcess != null) {
+            localProcess.destroyForcibly();
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link FfmpegSupervisor} keeps track of the FFmpeg processes of all cameras of the binding.
+ *
+ * Conversions with an identical command share one process, which is stopped when the last of them is stopped. A
+ * conversion registered while that process is still stopping gets a new process. If the maximum number of processes
+ * is reached, including the stopping ones, further conversions wait until a process has finished. It also holds the
+ * time a snapshot is served from memory before a new one is requested from the camera.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class FfmpegSupervisor {
+    public static final int DEFAULT_SNAPSHOT_CACHE_TIME = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Map<String, RunningProcess> processes = new HashMap<>();
+    /** owners of the processes that are no longer used, but have not finished yet */
+    private final Set<Ffmpeg> stopping = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Deque<Ffmpeg> waiting = new ArrayDeque<>();
+    private int maxProcesses = 0;
+    private volatile int snapshotCacheTime = DEFAULT_SNAPSHOT_CACHE_TIME;
+
+    private static class RunningProcess {
+        private final Ffmpeg owner;
+        private final Set<Ffmpeg> users = new LinkedHashSet<>();
+
+        private RunningProcess(Ffmpeg owner) {
+            this.owner = owner;
+            users.add(owner);
+        }
+    }
+
+    /**
+     * @param maxProcesses the maximum number of FFmpeg processes at the same time, 0 for no limit
+     * @param snapshotCacheTime time in ms a snapshot is served without requesting a new one from the camera
+     */
+    public void configure(int maxProcesses, int snapshotCacheTime) {
+        Ffmpeg next;
+        synchronized (this) {
+            this.maxProcesses = Math.max(0, maxProcesses);
+            this.snapshotCacheTime = Math.max(0, snapshotCacheTime);
+            next = pollWaiting();
+        }
+        while (next != null) {
+            next.startProcess();
+            synchronized (this) {
+                next = pollWaiting();
+            }
+        }
+    }
+
+    public int getSnapshotCacheTime() {
+        return snapshotCacheTime;
+    }
+
+    /**
+     * Registers a conversion that wants to run.
+     *
+     * @return true if the conversion has to start its own process now, false if it shares an already running process
+     *         or has to wait for a free process
+     */
+    public synchronized boolean register(Ffmpeg ffmpeg) {
+        RunningProcess process = processes.get(ffmpeg.getSupervisorKey());
+        if (process != null) {
+            if (process.users.add(ffmpeg) && process.owner != ffmpeg) {
+                logger.debug("FFmpeg {} shares an already running process", ffmpeg.getFormat());
+            }
+            return false;
+        }
+        if (maxProcesses > 0 && getProcessCount() >= maxProcesses) {
+            if (!waiting.contains(ffmpeg)) {
+                waiting.add(ffmpeg);
+                logger.info("Already {} FFmpeg processes are running, FFmpeg {} has to wait for a free one.",
+                        getProcessCount(), ffmpeg.getFormat());
+            }
+            return false;
+        }
+        processes.put(ffmpeg.getSupervisorKey(), new RunningProcess(ffmpeg));
+        return true;
+    }
+
+    /**
+     * @return true if the conversion uses a process that was started by another conversion
+     */
+    public synchronized boolean isSharing(Ffmpeg ffmpeg) {
+        RunningProcess process = processes.get(ffmpeg.getSupervisorKey());
+        return process != null && process.owner != ffmpeg && process.users.contains(ffmpeg);
+    }
+
+    /**
+     * Unregisters a conversion that is no longer needed.
+     *
+     * @return the conversion whose process has to be stopped, as no other conversion uses it anymore
+     */
+    public synchronized @Nullable Ffmpeg unregister(Ffmpeg ffmpeg) {
+        waiting.remove(ffmpeg);
+        RunningProcess process = processes.get(ffmpeg.getSupervisorKey());
+        if (process != null && process.users.remove(ffmpeg) && process.users.isEmpty()) {
+            // the next registration must not share the process that is stopped now
+            processes.remove(ffmpeg.getSupervisorKey());
+            stopping.add(process.owner);
+            return process.owner;
+        }
+        return null;
+    }
+
+    /**
+     * Called when a process has ended.
+     *
+     * @return the next waiting conversion that can start its process now
+     */
+    public synchronized @Nullable Ffmpeg finished(Ffmpeg owner) {
+        if (!stopping.remove(owner)) {
+            // the process ended by itself
+            RunningProcess process = processes.get(owner.getSupervisorKey());
+            if (process != null && process.owner == owner) {
+                processes.remove(owner.getSupervisorKey());
+            }
+        }
+        return pollWaiting();
+    }
+
+    private @Nullable Ffmpeg pollWaiting() {
+        while (!waiting.isEmpty() && (maxProcesses == 0 || getProcessCount() < maxProcesses)) {
+            Ffmpeg next = waiting.poll();
+            if (next != null && register(next)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of running FFmpeg processes
+     */
+    public synchronized int getProcessCount() {
+        return processes.size() + stopping.size();
+    }
+}
@@ -68,6 +68,10 @@ public class IpCameraBindingConstants {
     public static final Set<ThingTypeUID> GROUP_SUPPORTED_THING_TYPES = new HashSet<ThingTypeUID>(
             Arrays.asList(THING_TYPE_GROUP));
 
+    // List of all Binding Config items
+    public static final String CONFIG_MAX_FFMPEG_PROCESSES = "maxFfmpegProcesses";
+    public static final String CONFIG_SNAPSHOT_CACHE_TIME = "snapshotCacheTime";
+
     // List of all Thing Config items
     public static final String CONFIG_IPADDRESS = "ipAddress";
     public static final String CONFIG_ONVIF_PORT = "onvifPort";
@@ -35,6 +35,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -45,6 +46,7 @@ import org.openhab.binding.ipcamera.internal.ChannelTracking;
 import org.openhab.binding.ipcamera.internal.DahuaHandler;
 import org.openhab.binding.ipcamera.internal.DoorBirdHandler;
 import org.openhab.binding.ipcamera.internal.Ffmpeg;
+import org.openhab.binding.ipcamera.internal.FfmpegSupervisor;
 import org.openhab.binding.ipcamera.internal.FoscamHandler;
 import org.openhab.binding.ipcamera.internal.GroupTracker;
 import org.openhab.binding.ipcamera.internal.Helper;
@@ -87,7 +89,9 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelMatcher;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
@@ -125,6 +129,10 @@ import io.netty.util.concurrent.GlobalEventExecutor;
 
 @NonNullByDefault
 public class IpCameraHandler extends BaseThingHandler {
+    // a viewer that has more than this queued is too slow, it does not get new frames until its queue is emptied
+    public static final WriteBufferWaterMark STREAM_WATER_MARK = new WriteBufferWaterMark(512 * 1024, 2048 * 1024);
+    private static final ByteBuf MJPEG_FOOTER = Unpooled
+            .unreleasableBuffer(Unpooled.copiedBuffer("\r\n", StandardCharsets.US_ASCII));
     public final Logger logger = LoggerFactory.getLogger(getClass());
     public final IpCameraDynamicStateDescriptionProvider stateDescriptionProvider;
     private ScheduledExecutorService threadPool = Executors.newScheduledThreadPool(4);
@@ -133,9 +141,19 @@ public class IpCameraHandler extends BaseThingHandler {
 
     // ChannelGroup is thread safe
     public final ChannelGroup mjpegChannelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private final AtomicLong droppedMjpegFrames = new AtomicLong();
+    private final ChannelMatcher writableViewers = channel -> {
+        if (channel.isWritable()) {
+            return true;
+        }
+        droppedMjpegFrames.incrementAndGet();
+        logger.trace("Dropping a mjpeg frame for the slow viewer {}", channel.remoteAddress());
+        return false;
+    };
     private final ChannelGroup snapshotMjpegChannelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
     private final ChannelGroup autoSnapshotMjpegChannelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
     public final ChannelGroup openChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    public final FfmpegSupervisor ffmpegSupervisor;
     public @Nullable Ffmpeg ffmpegHLS = null;
     public @Nullable Ffmpeg ffmpegRecord = null;
     public @Nullable Ffmpeg ffmpegGIF = null;
@@ -182,6 +200,7 @@ public class IpCameraHandler extends BaseThingHandler {
     private Object firstStreamedMsg = new Object();
     public byte[] currentSnapshot = new byte[] { (byte) 0x00 };
     public ReentrantLock lockCurrentSnapshot = new ReentrantLock();
+    private volatile long currentSnapshotTime = 0;
     public String rtspUri = "";
     public boolean audioAlarmUpdateSnapshot = false;
     private boolean motionAlarmUpdateSnapshot = false;
@@ -395,9 +414,10 @@ public class IpCameraHandler extends BaseThingHandler {
     }
 
     public IpCameraHandler(Thing thing, @Nullable String ipAddress, GroupTracker groupTracker,
-            IpCameraDynamicStateDescriptionProvider stateDescriptionProvider) {
+            IpCameraDynamicStateDescriptionProvider stateDescriptionProvider, FfmpegSupervisor ffmpegSupervisor) {
         super(thing);
         this.stateDescriptionProvider = stateDescriptionProvider;
+        this.ffmpegSupervisor = ffmpegSupervisor;
         if (ipAddress != null) {
             hostIp = ipAddress;
         } else {
@@ -617,10 +637,34 @@ public class IpCameraHandler extends BaseThingHandler {
                 });
     }
 
+    /**
+     * Requests a new snapshot from the camera, unless the current one is younger than the snapshot cache time of the
+     * binding. Used by the HTTP endpoints, so many requests in a short time only cause one request to the camera.
+     */
+    public void refreshSnapshot() {
+        if (!snapshotPolling && !snapshotUri.isEmpty()
+                && System.currentTimeMillis() - currentSnapshotTime >= ffmpegSupervisor.getSnapshotCacheTime()) {
+            sendHttpGET(snapshotUri);
+        }
+    }
+
+    /**
+     * @return the current snapshot, the returned buffer shares the memory of the snapshot and needs no release
+     */
+    public ByteBuf getSnapshotBuffer() {
+        lockCurrentSnapshot.lock();
+        try {
+            return Unpooled.wrappedBuffer(currentSnapshot);
+        } finally {
+            lockCurrentSnapshot.unlock();
+        }
+    }
+
     public void processSnapshot(byte[] incommingSnapshot) {
         lockCurrentSnapshot.lock();
         try {
             currentSnapshot = incommingSnapshot;
+            currentSnapshotTime = System.currentTimeMillis();
             if (cameraConfig.getGifPreroll() > 0) {
                 fifoSnapshotBuffer.add(incommingSnapshot);
                 if (fifoSnapshotBuffer.size() > (cameraConfig.getGifPreroll() + gifRecordTime)) {
@@ -670,6 +714,7 @@ public class IpCameraHandler extends BaseThingHandler {
                 serverBootstrap.channel(NioServerSocketChannel.class);
                 // IP "0.0.0.0" will bind the server to all network connections//
                 serverBootstrap.localAddress(new InetSocketAddress("0.0.0.0", cameraConfig.getServerPort()));
+                serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, STREAM_WATER_MARK);
                 serverBootstrap.childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel socketChannel) throws Exception {
@@ -845,16 +890,30 @@ public class IpCameraHandler extends BaseThingHandler {
     }
 
     public void sendMjpegFrame(byte[] jpg, ChannelGroup channelGroup) {
+        sendMjpegFrame(Unpooled.wrappedBuffer(jpg), channelGroup);
+    }
+
+    /**
+     * Sends a jpg as one frame of a mjpeg stream. The frame is not copied per viewer, all viewers share the same
+     * reference counted buffer. Viewers that can not keep up skip frames, so they do not use more and more memory.
+     *
+     * @param jpg the jpg, this method takes over the reference and releases it.
+     */
+    public void sendMjpegFrame(ByteBuf jpg, ChannelGroup channelGroup) {
         final String boundary = "thisMjpegStream";
-        ByteBuf imageByteBuf = Unpooled.copiedBuffer(jpg);
-        int length = imageByteBuf.readableBytes();
-        String header = "--" + boundary + "\r\n" + "content-type: image/jpeg" + "\r\n" + "content-length: " + length
-                + "\r\n\r\n";
-        ByteBuf headerBbuf = Unpooled.copiedBuffer(header, 0, header.length(), StandardCharsets.UTF_8);
-        ByteBuf footerBbuf = Unpooled.copiedBuffer("\r\n", 0, 2, StandardCharsets.UTF_8);
-        streamToGroup(headerBbuf, channelGroup, false);
-        streamToGroup(imageByteBuf, channelGroup, false);
-        streamToGroup(footerBbuf, channelGroup, true);
+        String header = "--" + boundary + "\r\n" + "content-type: image/jpeg" + "\r\n" + "content-length: "
+                + jpg.readableBytes() + "\r\n\r\n";
+        ByteBuf headerBbuf = Unpooled.wrappedBuffer(header.getBytes(StandardCharsets.US_ASCII));
+        // header, jpg and footer are written as one message so a dropped frame never breaks the multipart stream
+        ByteBuf frame = Unpooled.wrappedBuffer(headerBbuf, jpg, MJPEG_FOOTER.duplicate());
+        channelGroup.writeAndFlush(frame, writableViewers);
+    }
+
+    /**
+     * @return the number of mjpeg frames that were not sent to slow viewers
+     */
+    public long getDroppedMjpegFrames() {
+        return droppedMjpegFrames.get();
     }
 
     public void streamToGroup(Object msg, ChannelGroup channelGroup, boolean flush) {
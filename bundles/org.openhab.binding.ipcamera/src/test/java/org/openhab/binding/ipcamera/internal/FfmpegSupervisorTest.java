@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.FFmpegFormat;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class FfmpegSupervisorTest {
+
+    private final FfmpegSupervisor supervisor = new FfmpegSupervisor();
+
+    private static Ffmpeg ffmpeg(String key) {
+        Ffmpeg ffmpeg = mock(Ffmpeg.class);
+        when(ffmpeg.getSupervisorKey()).thenReturn(key);
+        when(ffmpeg.getFormat()).thenReturn(FFmpegFormat.HLS);
+        return ffmpeg;
+    }
+
+    @Test
+    public void identicalConversionsShareOneProcess() {
+        Ffmpeg first = ffmpeg("hls");
+        Ffmpeg second = ffmpeg("hls");
+
+        assertTrue(supervisor.register(first));
+        assertFalse(supervisor.register(second));
+        assertTrue(supervisor.isSharing(second));
+        assertFalse(supervisor.isSharing(first));
+        assertEquals(1, supervisor.getProcessCount());
+
+        // the process is still used by the second conversion
+        assertNull(supervisor.unregister(first));
+        assertSame(first, supervisor.unregister(second));
+    }
+
+    @Test
+    public void processIsStoppedWhenLastUserLeaves() {
+        Ffmpeg first = ffmpeg("hls");
+
+        assertTrue(supervisor.register(first));
+        assertSame(first, supervisor.unregister(first));
+        // the process is still counted until it has finished
+        assertEquals(1, supervisor.getProcessCount());
+
+        assertNull(supervisor.finished(first));
+        assertEquals(0, supervisor.getProcessCount());
+    }
+
+    @Test
+    public void registrationDuringTeardownStartsNewProcess() {
+        Ffmpeg first = ffmpeg("hls");
+        Ffmpeg second = ffmpeg("hls");
+
+        assertTrue(supervisor.register(first));
+        assertSame(first, supervisor.unregister(first));
+
+        // does not attach to the stopping process
+        assertTrue(supervisor.register(second));
+        assertFalse(supervisor.isSharing(second));
+        assertEquals(2, supervisor.getProcessCount());
+
+        // the end of the stopped process does not affect the new one
+        assertNull(supervisor.finished(first));
+        assertEquals(1, supervisor.getProcessCount());
+        assertSame(second, supervisor.unregister(second));
+    }
+
+    @Test
+    public void sameConversionCanRestartDuringTeardown() {
+        Ffmpeg ffmpeg = ffmpeg("hls");
+
+        assertTrue(supervisor.register(ffmpeg));
+        assertSame(ffmpeg, supervisor.unregister(ffmpeg));
+        assertTrue(supervisor.register(ffmpeg));
+
+        supervisor.finished(ffmpeg);
+        assertEquals(1, supervisor.getProcessCount());
+        assertSame(ffmpeg, supervisor.unregister(ffmpeg));
+    }
+
+    @Test
+    public void conversionsWaitForFreeProcess() {
+        supervisor.configure(1, FfmpegSupervisor.DEFAULT_SNAPSHOT_CACHE_TIME);
+        Ffmpeg first = ffmpeg("hls");
+        Ffmpeg second = ffmpeg("mjpeg");
+
+        assertTrue(supervisor.register(first));
+        assertFalse(supervisor.register(second));
+        assertFalse(supervisor.isSharing(second));
+
+        assertSame(first, supervisor.unregister(first));
+        // a stopping process still counts against the limit
+        assertFalse(supervisor.register(second));
+
+        assertSame(second, supervisor.finished(first));
+        assertEquals(1, supervisor.getProcessCount());
+    }
+
+    @Test
+    public void waitingConversionIsRemovedWhenUnregistered() {
+        supervisor.configure(1, FfmpegSupervisor.DEFAULT_SNAPSHOT_CACHE_TIME);
+        Ffmpeg first = ffmpeg("hls");
+        Ffmpeg second = ffmpeg("mjpeg");
+
+        assertTrue(supervisor.register(first));
+        assertFalse(supervisor.register(second));
+        assertNull(supervisor.unregister(second));
+
+        assertSame(first, supervisor.unregister(first));
+        assertNull(supervisor.finished(first));
+        assertEquals(0, supervisor.getProcessCount());
+    }
+}
@@ -19,8 +19,6 @@ import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +33,7 @@ import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.openhab.binding.network.internal.utils.NetworkUtils.ArpPingUtilEnum;
 import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
 import org.openhab.binding.network.internal.utils.PingResult;
+import org.openhab.binding.network.internal.utils.ProbeExecutor;
 import org.openhab.core.cache.ExpiringCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +67,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     private long refreshIntervalInMS = 60000;
     private int timeoutInMS = 5000;
     private long lastSeenInMS;
+    private long cycleStartInMS;
+    private long lastCycleDurationInMS;
 
     private @NonNullByDefault({}) String hostname;
     private @NonNullByDefault({}) ExpiringCache<@Nullable InetAddress> destination;
@@ -79,7 +80,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
     private @Nullable ScheduledFuture<?> refreshJob;
-    protected @Nullable ExecutorService executorService;
+    protected @Nullable ProbeExecutor executorService;
     private String dhcpState = "off";
     Integer currentCheck = 0;
     int detectionChecks;
@@ -279,14 +280,25 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Returns the executor for the checks of one detection cycle. The checks are run by the binding-wide
+     * {@link ProbeExecutor} thread pool.
+     */
+    public ProbeExecutor getProbeExecutor() {
+        return new ProbeExecutor();
+    }
+
+    /**
+     * Return the duration of the last finished detection cycle in milliseconds or 0 if there was none yet.
+     */
+    public long getLastCycleDuration() {
+        return lastCycleDurationInMS;
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The checks are run by the binding-wide
+     * probe thread pool, which runs as many checks at once as it has threads.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -327,12 +339,12 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             return false;
         }
 
-        final ExecutorService executorService = getThreadsFor(detectionChecks);
+        cycleStartInMS = System.currentTimeMillis();
+        final ProbeExecutor executorService = getProbeExecutor();
         this.executorService = executorService;
 
         for (Integer tcpPort : tcpPorts) {
             executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
                 performServicePing(tcpPort);
                 checkIfFinished();
             });
@@ -342,7 +354,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         // each own executor for each network interface for other tools
         if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
             executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionARP_" + hostname + " ");
                 // arp-ping.exe tool capable of handling multiple interfaces by itself
                 performARPping("");
                 checkIfFinished();
@@ -350,7 +361,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         } else if (interfaceNames != null) {
             for (final String interfaceName : interfaceNames) {
                 executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
                     performARPping(interfaceName);
                     checkIfFinished();
                 });
@@ -361,7 +371,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (pingMethod != null) {
             executorService.execute(() -> {
                 if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
                     performSystemPing();
                 } else {
                     performJavaPing();
@@ -385,15 +394,26 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
-        ExecutorService service = executorService;
+        ProbeExecutor service = executorService;
         if (service == null) {
             return;
         }
         // Finish the detection process
         service.shutdownNow();
         executorService = null;
+        int checks = detectionChecks;
         detectionChecks = 0;
 
+        lastCycleDurationInMS = System.currentTimeMillis() - cycleStartInMS;
+        ProbeExecutor.recordCycle(lastCycleDurationInMS);
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Presence detection for {} finished in {} ms with {} checks (cycles: {}, avg: {} ms, max: {} ms, probes active: {}, queued: {})",
+                    hostname, lastCycleDurationInMS, checks, ProbeExecutor.getCycleCount(),
+                    Math.round(ProbeExecutor.getAverageCycleTime()), ProbeExecutor.getMaxCycleTime(),
+                    ProbeExecutor.getActiveProbes(), ProbeExecutor.getQueuedProbes());
+        }
+
         PresenceDetectionValue v;
 
         // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually reachable.
@@ -433,13 +453,14 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * if no presence detection is performed right now.
      */
     public void waitForPresenceDetection() {
-        ExecutorService service = executorService;
+        ProbeExecutor service = executorService;
         if (service == null) {
             return;
         }
         try {
-            // We may get interrupted here by cancelRefreshJob().
-            service.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
+            // We may get interrupted here by cancelRefreshJob(). Probes waiting for a free thread of the shared pool
+            // get the full timeout once they are started.
+            service.awaitProbes(timeoutInMS + 100, TimeUnit.MILLISECONDS);
             submitFinalResult();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
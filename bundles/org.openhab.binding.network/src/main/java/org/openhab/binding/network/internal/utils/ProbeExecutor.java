@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.ThreadPoolManager;
+
+/**
+ * An executor for the probes of one presence detection cycle. The probes of all cycles are run by one bounded,
+ * binding-wide thread pool of the {@link ThreadPoolManager}, instead of creating a thread pool per cycle. Shutting
+ * down this executor only cancels the probes of its own cycle.
+ *
+ * The binding-wide pool also collects the durations of the detection cycles.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class ProbeExecutor extends AbstractExecutorService {
+
+    public static final String THREAD_POOL_NAME = "network-presence";
+    public static final int DEFAULT_POOL_SIZE = 64;
+
+    private static final AtomicLong CYCLES = new AtomicLong();
+    private static final AtomicLong CYCLE_TIME_TOTAL = new AtomicLong();
+    private static final AtomicLong CYCLE_TIME_MAX = new AtomicLong();
+
+    private final ExecutorService pool;
+    private final Set<ProbeTask> tasks = ConcurrentHashMap.newKeySet();
+    private boolean shutdown;
+
+    /**
+     * A probe that remembers when it was started by the pool.
+     */
+    private class ProbeTask extends FutureTask<Void> {
+        // guarded by the executor
+        boolean started;
+        long startNanos;
+
+        ProbeTask(Runnable command) {
+            super(command, null);
+        }
+
+        @Override
+        public void run() {
+            synchronized (ProbeExecutor.this) {
+                started = true;
+                startNanos = System.nanoTime();
+                ProbeExecutor.this.notifyAll();
+            }
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            synchronized (ProbeExecutor.this) {
+                tasks.remove(this);
+                ProbeExecutor.this.notifyAll();
+            }
+        }
+    }
+
+    public ProbeExecutor() {
+        this(getPool());
+    }
+
+    ProbeExecutor(ExecutorService pool) {
+        this.pool = pool;
+    }
+
+    private static ExecutorService getPool() {
+        return ThreadPoolManager.getPool(THREAD_POOL_NAME);
+    }
+
+    /**
+     * Sets the maximum number of probes that are run at the same time by the whole binding.
+     */
+    public static synchronized void setPoolSize(int size) {
+        ExecutorService pool = getPool();
+        if (!(pool instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        ThreadPoolExecutor threadPool = (ThreadPoolExecutor) pool;
+        int poolSize = Math.max(1, size);
+        if (poolSize > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(poolSize);
+            threadPool.setCorePoolSize(poolSize);
+        } else {
+            threadPool.setCorePoolSize(poolSize);
+            threadPool.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    /**
+     * @return the number of probes waiting for a free thread
+     */
+    public static int getQueuedProbes() {
+        ExecutorService pool = getPool();
+        return pool instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) pool).getQueue().size() : 0;
+    }
+
+    /**
+     * @return the number of probes being run right now
+     */
+    public static int getActiveProbes() {
+        ExecutorService pool = getPool();
+        return pool instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) pool).getActiveCount() : 0;
+    }
+
+    public static void recordCycle(long durationInMS) {
+        CYCLES.incrementAndGet();
+        CYCLE_TIME_TOTAL.addAndGet(durationInMS);
+        CYCLE_TIME_MAX.accumulateAndGet(durationInMS, Math::max);
+    }
+
+    /**
+     * @return the number of finished presence detection cycles
+     */
+    public static long getCycleCount() {
+        return CYCLES.get();
+    }
+
+    /**
+     * @return the average duration of a presence detection cycle in milliseconds
+     */
+    public static double getAverageCycleTime() {
+        long cycles = CYCLES.get();
+        return cycles == 0 ? 0 : (double) CYCLE_TIME_TOTAL.get() / cycles;
+    }
+
+    /**
+     * @return the longest duration of a presence detection cycle in milliseconds
+     */
+    public static long getMaxCycleTime() {
+        return CYCLE_TIME_MAX.get();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ProbeTask task = new ProbeTask(command);
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The presence detection cycle is already finished");
+            }
+            tasks.add(task);
+        }
+        pool.execute(task);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        for (ProbeTask task : tasks) {
+            task.cancel(true);
+            if (pool instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) pool).remove(task);
+            }
+        }
+        return List.of();
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && tasks.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until all probes of this cycle are finished or this executor is shut down. Every probe is given the
+     * timeout from the moment it is started, so the time a probe waits for a free thread of the binding-wide pool
+     * does not count against it.
+     *
+     * @return true if all probes are finished, false if a probe did not finish within the timeout
+     */
+    public synchronized boolean awaitProbes(long timeout, TimeUnit unit) throws InterruptedException {
+        long timeoutNanos = unit.toNanos(timeout);
+        while (!shutdown && !tasks.isEmpty()) {
+            long remaining;
+            if (tasks.stream().anyMatch(task -> !task.started)) {
+                // the timeout of a queued probe has not started yet
+                remaining = timeoutNanos;
+            } else {
+                // the probe started last has the latest deadline
+                long now = System.nanoTime();
+                remaining = tasks.stream().mapToLong(task -> task.startNanos + timeoutNanos - now).max().orElse(0);
+            }
+            if (remaining <= 0) {
+                return false;
+            }
+            // woken up when a probe starts or finishes
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return tasks.isEmpty();
+    }
+}
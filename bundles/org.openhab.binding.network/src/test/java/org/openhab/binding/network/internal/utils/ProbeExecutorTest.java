@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the executor of one presence detection cycle on a shared pool.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class ProbeExecutorTest {
+
+    private final ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>());
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Occupies the single thread of the pool until the returned latch is counted down.
+     */
+    private CountDownLatch blockPool(ExecutorService executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    public void queuedProbesGetTheFullTimeout() throws InterruptedException {
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        AtomicInteger finished = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            cycle.execute(() -> {
+                sleep(100);
+                finished.incrementAndGet();
+            });
+        }
+
+        // the probes run one after the other, which takes longer than the timeout of a single probe
+        assertTrue(cycle.awaitProbes(250, TimeUnit.MILLISECONDS));
+        assertEquals(3, finished.get());
+    }
+
+    @Test
+    public void probeWaitingForOtherCyclesIsNotTimedOut() throws InterruptedException {
+        ProbeExecutor otherCycle = new ProbeExecutor(pool);
+        CountDownLatch release = blockPool(otherCycle);
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        AtomicBoolean probed = new AtomicBoolean();
+        cycle.execute(() -> probed.set(true));
+
+        new Thread(() -> {
+            sleep(300);
+            release.countDown();
+        }).start();
+
+        assertTrue(cycle.awaitProbes(100, TimeUnit.MILLISECONDS));
+        assertTrue(probed.get());
+    }
+
+    @Test
+    public void startedProbeTimesOut() throws InterruptedException {
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        CountDownLatch release = blockPool(cycle);
+
+        long start = System.nanoTime();
+        assertFalse(cycle.awaitProbes(100, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        release.countDown();
+    }
+
+    @Test
+    public void shutdownNowCancelsOnlyTheProbesOfItsCycle() throws InterruptedException {
+        ProbeExecutor otherCycle = new ProbeExecutor(pool);
+        CountDownLatch release = blockPool(otherCycle);
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        AtomicBoolean cancelledProbeRun = new AtomicBoolean();
+        cycle.execute(() -> cancelledProbeRun.set(true));
+        CountDownLatch otherProbe = new CountDownLatch(1);
+        otherCycle.execute(otherProbe::countDown);
+
+        cycle.shutdownNow();
+
+        assertTrue(cycle.isTerminated());
+        assertEquals(1, pool.getQueue().size());
+        release.countDown();
+        assertTrue(otherProbe.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelledProbeRun.get());
+        assertFalse(otherCycle.isShutdown());
+    }
+
+    @Test
+    public void shutdownNowInterruptsRunningProbes() throws InterruptedException {
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        cycle.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        cycle.shutdownNow();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(cycle.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void finishedCycleRejectsProbes() {
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        cycle.shutdownNow();
+
+        assertThrows(RejectedExecutionException.class, () -> cycle.execute(() -> {
+        }));
+    }
+
+    @Test
+    public void awaitProbesReturnsWhenCycleIsFinished() throws InterruptedException {
+        ProbeExecutor cycle = new ProbeExecutor(pool);
+        CountDownLatch release = blockPool(cycle);
+        new Thread(() -> {
+            sleep(100);
+            cycle.shutdownNow();
+        }).start();
+
+        long start = System.nanoTime();
+        cycle.awaitProbes(10, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        release.countDown();
+    }
+}
@@ -13,25 +13,42 @@
 package org.openhab.io.homekit.internal;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.github.hapjava.accessories.HomekitAccessory;
+import io.github.hapjava.characteristics.Characteristic;
 import io.github.hapjava.server.impl.HomekitRoot;
+import io.github.hapjava.services.Service;
 
 /**
  * Stores the created HomekitAccessories. GroupedAccessories are also held here
  * in a pre-created pending state until all required characteristics are found.
  *
+ * For each accessory the JSON describing it to the HomeKit controllers (without the current values) is serialized
+ * once when it is added, so that a rebuilt accessory can be compared with the published one.
+ *
  * @author Andy Lintner - Initial contribution
  */
 class HomekitAccessoryRegistry {
     private @Nullable HomekitRoot bridge;
     private final Map<String, HomekitAccessory> createdAccessories = new HashMap<>();
+    private final Map<String, String> accessoryJson = new HashMap<>();
     private int configurationRevision = 1;
     private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryRegistry.class);
 
@@ -59,6 +76,7 @@ class HomekitAccessoryRegistry {
     public synchronized void remove(String itemName) {
         if (createdAccessories.containsKey(itemName)) {
             HomekitAccessory accessory = createdAccessories.remove(itemName);
+            accessoryJson.remove(itemName);
             logger.trace("Removed accessory {} for taggedItem {}", accessory, itemName);
             final HomekitRoot bridge = this.bridge;
             if (bridge != null) {
@@ -93,6 +111,7 @@ class HomekitAccessoryRegistry {
 
     public synchronized void addRootAccessory(String itemName, HomekitAccessory accessory) {
         createdAccessories.put(itemName, accessory);
+        accessoryJson.put(itemName, serialize(accessory));
         final HomekitRoot bridge = this.bridge;
         if (bridge != null) {
             bridge.addAccessory(accessory);
@@ -102,4 +121,86 @@ class HomekitAccessoryRegistry {
     public Map<String, HomekitAccessory> getAllAccessories() {
         return this.createdAccessories;
     }
+
+    /**
+     * Rebuilds the accessories of the given items. A new configuration revision, which makes the HomeKit controllers
+     * reload all accessories, is only made if the JSON of an accessory has changed or accessories were added or
+     * removed.
+     *
+     * @param itemNames the items to rebuild
+     * @param create adds the accessories of an item to this registry, if the item still exists
+     * @return true if a new configuration revision was made
+     */
+    public synchronized boolean rebuild(Collection<String> itemNames, Consumer<String> create) {
+        boolean changed = false;
+        for (final String name : itemNames) {
+            final @Nullable String oldJson = accessoryJson.get(name);
+            remove(name);
+            create.accept(name);
+            if (!Objects.equals(oldJson, accessoryJson.get(name))) {
+                logger.trace("accessory {} changed", name);
+                changed = true;
+            }
+        }
+        if (changed) {
+            makeNewConfigurationRevision();
+        } else if (!itemNames.isEmpty()) {
+            logger.trace("accessories are unchanged, keep configuration revision {}", configurationRevision);
+        }
+        return changed;
+    }
+
+    /**
+     * @return the cached JSON of the accessory created for the item, or null if there is none
+     */
+    public synchronized @Nullable String getAccessoryJson(String itemName) {
+        return accessoryJson.get(itemName);
+    }
+
+    /**
+     * Serializes the accessory like it is published to the HomeKit controllers, but without the current values.
+     * Characteristics whose description is not available immediately are serialized with their identity, so that
+     * such an accessory is always considered as changed.
+     */
+    private String serialize(HomekitAccessory accessory) {
+        final JsonArrayBuilder services = Json.createArrayBuilder();
+        int iid = 1;
+        for (Service service : accessory.getServices()) {
+            final JsonArrayBuilder characteristics = Json.createArrayBuilder();
+            for (Characteristic characteristic : service.getCharacteristics()) {
+                characteristics.add(serialize(characteristic, iid++));
+            }
+            services.add(
+                    Json.createObjectBuilder().add("type", service.getType()).add("characteristics", characteristics));
+        }
+        return Json.createObjectBuilder().add("aid", accessory.getId()).add("name", getNow(accessory.getName()))
+                .add("serialNumber", getNow(accessory.getSerialNumber())).add("services", services).build()
+                .toString();
+    }
+
+    private JsonValue serialize(Characteristic characteristic, int iid) {
+        final JsonObjectBuilder builder = Json.createObjectBuilder().add("class", characteristic.getClass().getName());
+        try {
+            final @Nullable JsonObject json = characteristic.toJson(iid).getNow(null);
+            if (json != null) {
+                json.forEach((key, value) -> {
+                    if (!"value".equals(key)) {
+                        builder.add(key, value);
+                    }
+                });
+                return builder.build();
+            }
+        } catch (CompletionException e) {
+            logger.trace("Could not serialize characteristic {}: {}", characteristic, e.getMessage());
+        }
+        return builder.add("identity", System.identityHashCode(characteristic)).build();
+    }
+
+    private static String getNow(CompletableFuture<String> value) {
+        try {
+            return Objects.toString(value.getNow(null), "");
+        } catch (CompletionException e) {
+            return "";
+        }
+    }
 }
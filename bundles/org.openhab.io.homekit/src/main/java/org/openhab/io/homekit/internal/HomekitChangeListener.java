@@ -191,7 +191,10 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     }
 
     public void makeNewConfigurationRevision() {
-        final int newRevision = accessoryRegistry.makeNewConfigurationRevision();
+        storeConfigurationRevision(accessoryRegistry.makeNewConfigurationRevision());
+    }
+
+    private void storeConfigurationRevision(int newRevision) {
         lastAccessoryCount = accessoryRegistry.getAllAccessories().size();
         logger.trace("make new configuration revision. new revision number {}, number of accessories {}", newRevision,
                 lastAccessoryCount);
@@ -199,17 +202,18 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         storage.put(ACCESSORY_COUNT, "" + lastAccessoryCount);
     }
 
+    /**
+     * Rebuilds the accessories of the dirty items only, see {@link HomekitAccessoryRegistry#rebuild}.
+     */
     private synchronized void applyUpdates() {
         logger.trace("apply updates");
-        for (final String name : pendingUpdates) {
-            accessoryRegistry.remove(name);
+        if (accessoryRegistry.rebuild(pendingUpdates, name -> {
             logger.trace(" add items {}", name);
             getItemOptional(name).ifPresent(this::createRootAccessories);
+        })) {
+            storeConfigurationRevision(accessoryRegistry.getConfigurationRevision());
         }
-        if (!pendingUpdates.isEmpty()) {
-            makeNewConfigurationRevision();
-            pendingUpdates.clear();
-        }
+        pendingUpdates.clear();
     }
 
     @Override
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.hapjava.accessories.HomekitAccessory;
+import io.github.hapjava.characteristics.Characteristic;
+import io.github.hapjava.services.Service;
+
+/**
+ * Tests that a new configuration revision is only made when a rebuilt accessory has changed.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class HomekitAccessoryRegistryTest {
+    private static final int REVISION = 5;
+    private static final String LIGHT = "Light";
+    private static final String FAN = "Fan";
+
+    private final HomekitAccessoryRegistry registry = new HomekitAccessoryRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        registry.setConfigurationRevision(REVISION);
+        registry.addRootAccessory(LIGHT, accessory(1, characteristic("pr", true)));
+    }
+
+    @Test
+    public void unchangedRebuildKeepsRevision() {
+        // only the value differs, it is not part of the published accessory
+        assertThat(registry.rebuild(Set.of(LIGHT),
+                name -> registry.addRootAccessory(name, accessory(1, characteristic("pr", false)))), is(false));
+        assertThat(registry.getConfigurationRevision(), is(REVISION));
+        assertThat(registry.getAllAccessories().keySet(), contains(LIGHT));
+    }
+
+    @Test
+    public void changedCharacteristicMakesNewRevision() {
+        assertThat(registry.rebuild(Set.of(LIGHT),
+                name -> registry.addRootAccessory(name, accessory(1, characteristic("pw", true)))), is(true));
+        assertThat(registry.getConfigurationRevision(), is(REVISION + 1));
+    }
+
+    @Test
+    public void addedAccessoryMakesNewRevision() {
+        assertThat(registry.rebuild(Set.of(FAN),
+                name -> registry.addRootAccessory(name, accessory(2, characteristic("pr", true)))), is(true));
+        assertThat(registry.getConfigurationRevision(), is(REVISION + 1));
+        assertThat(registry.getAllAccessories().keySet(), containsInAnyOrder(LIGHT, FAN));
+    }
+
+    @Test
+    public void removedAccessoryMakesNewRevision() {
+        // the item does not exist anymore, so no accessory is created
+        assertThat(registry.rebuild(Set.of(LIGHT), name -> {
+        }), is(true));
+        assertThat(registry.getConfigurationRevision(), is(REVISION + 1));
+        assertThat(registry.getAllAccessories().keySet(), is(empty()));
+    }
+
+    @Test
+    public void incompleteCharacteristicMakesNewRevision() {
+        registry.addRootAccessory(FAN, accessory(2, incompleteCharacteristic()));
+        assertThat(registry.getAccessoryJson(FAN), containsString("identity"));
+
+        // the description of a rebuilt characteristic cannot be compared, so the accessory is considered as changed
+        assertThat(registry.rebuild(Set.of(FAN), name -> registry.addRootAccessory(name,
+                accessory(2, incompleteCharacteristic()))), is(true));
+        assertThat(registry.getConfigurationRevision(), is(REVISION + 1));
+    }
+
+    @Test
+    public void emptyRebuildKeepsRevision() {
+        assertThat(registry.rebuild(Set.of(), name -> {
+        }), is(false));
+        assertThat(registry.getConfigurationRevision(), is(REVISION));
+    }
+
+    private static HomekitAccessory accessory(int id, Characteristic characteristic) {
+        Service service = mock(Service.class);
+        when(service.getType()).thenReturn("00000043-0000-1000-8000-0026BB765291");
+        when(service.getCharacteristics()).thenReturn(List.of(characteristic));
+        HomekitAccessory accessory = mock(HomekitAccessory.class);
+        when(accessory.getId()).thenReturn(id);
+        when(accessory.getName()).thenReturn(CompletableFuture.completedFuture("Accessory " + id));
+        when(accessory.getSerialNumber()).thenReturn(CompletableFuture.completedFuture("none"));
+        when(accessory.getServices()).thenReturn(List.of(service));
+        return accessory;
+    }
+
+    private static Characteristic characteristic(String permission, boolean value) {
+        JsonObject json = Json.createObjectBuilder().add("type", "00000025-0000-1000-8000-0026BB765291")
+                .add("perms", Json.createArrayBuilder().add(permission)).add("format", "bool").add("value", value)
+                .build();
+        Characteristic characteristic = mock(Characteristic.class);
+        when(characteristic.toJson(anyInt())).thenReturn(CompletableFuture.completedFuture(json));
+        return characteristic;
+    }
+
+    private static Characteristic incompleteCharacteristic() {
+        Characteristic characteristic = mock(Characteristic.class);
+        when(characteristic.toJson(anyInt())).thenReturn(new CompletableFuture<>());
+        return characteristic;
+    }
+}
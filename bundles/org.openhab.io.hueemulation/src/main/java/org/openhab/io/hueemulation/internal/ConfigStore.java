@@ -31,10 +31,15 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.config.core.Configuration;
+import org.openhab.core.events.EventFilter;
+import org.openhab.core.events.EventSubscriber;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.Metadata;
 import org.openhab.core.items.MetadataKey;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.items.events.GroupItemStateChangedEvent;
+import org.openhab.core.items.events.ItemEvent;
+import org.openhab.core.items.events.ItemStateChangedEvent;
 import org.openhab.core.net.CidrAddress;
 import org.openhab.core.net.NetUtil;
 import org.openhab.core.net.NetworkAddressService;
@@ -67,15 +72,18 @@ import com.google.gson.GsonBuilder;
  * Also manages the pairing timeout. The service is restarted after a pairing timeout, due to the ConfigAdmin
  * configuration change.
  * <p>
+ * Item state changes are received to invalidate the cached lights of the {@link #lightsCache}.
+ * <p>
  * This is a central component and required by all other components and may not
  * depend on anything in this bundle.
  *
  * @author David Graeff - Initial contribution
  */
-@Component(immediate = false, service = ConfigStore.class, configurationPid = HueEmulationService.CONFIG_PID)
+@Component(immediate = false, service = { ConfigStore.class,
+        EventSubscriber.class }, configurationPid = HueEmulationService.CONFIG_PID)
 @ConfigurableService(category = "io", label = "Hue Emulation", description_uri = "io:hueemulation")
 @NonNullByDefault
-public class ConfigStore {
+public class ConfigStore implements EventSubscriber {
 
     public static final String METAKEY = "HUEEMU";
     public static final String EVENT_ADDRESS_CHANGED = "HUE_EMU_CONFIG_ADDR_CHANGED";
@@ -99,6 +107,11 @@ public class ConfigStore {
             .registerTypeAdapter(HueSuccessResponseStateChanged.class, new HueSuccessResponseStateChanged.Serializer())
             .registerTypeAdapter(HueGroupEntry.class, new HueGroupEntry.Serializer(this)).create();
 
+    /**
+     * The serialized lights, invalidated by item state changes
+     */
+    public final LightsResponseCache lightsCache = new LightsResponseCache(gson);
+
     @Reference
     protected @NonNullByDefault({}) ConfigurationAdmin configAdmin;
 
@@ -415,4 +428,21 @@ public class ConfigStore {
     public Set<InetAddress> getDiscoveryIps() {
         return discoveryIps;
     }
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return Set.of(ItemStateChangedEvent.TYPE, GroupItemStateChangedEvent.TYPE);
+    }
+
+    @Override
+    public @Nullable EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(org.openhab.core.events.Event event) {
+        if (event instanceof ItemEvent) {
+            lightsCache.invalidateItem(((ItemEvent) event).getItemName());
+        }
+    }
 }
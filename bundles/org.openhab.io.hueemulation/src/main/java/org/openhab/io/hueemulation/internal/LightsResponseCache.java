@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.items.GenericItem;
+import org.openhab.io.hueemulation.internal.dto.HueLightEntry;
+
+import com.google.gson.Gson;
+
+/**
+ * Caches the serialized hue lights. Alexa and Harmony devices poll the lights every few seconds, which would
+ * otherwise serialize all lights with Gson for every request.
+ * <p>
+ * Each light is serialized on its own and only again if it was invalidated, e.g. because the state of its item
+ * changed, or if the light or its item got replaced. The response with all lights is assembled from the serialized
+ * lights and kept as encoded bytes until one of them changes. Every response gets a new version, which is used as
+ * its entity tag.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class LightsResponseCache {
+
+    /**
+     * An encoded response with its entity tag.
+     */
+    public static class CachedResponse {
+        public final byte[] body;
+        public final EntityTag etag;
+
+        CachedResponse(byte[] body, EntityTag etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+
+    private static class SerializedLight {
+        final HueLightEntry light;
+        final GenericItem item;
+        final CachedResponse response;
+
+        SerializedLight(HueLightEntry light, GenericItem item, CachedResponse response) {
+            this.light = light;
+            this.item = item;
+            this.response = response;
+        }
+    }
+
+    private final Gson gson;
+    // entity tags must not repeat after a restart, while clients might still have cached a response
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis()) + "-";
+    private long version;
+
+    private final Map<String, SerializedLight> lights = new HashMap<>();
+    private final Map<String, String> hueIDsByItem = new HashMap<>();
+    private List<SerializedLight> allLightsParts = new ArrayList<>();
+    private @Nullable CachedResponse allLights;
+
+    public LightsResponseCache(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Invalidates the light of the given item, if there is one. Called for every item state change.
+     *
+     * @param itemName The name of the changed item
+     */
+    public synchronized void invalidateItem(String itemName) {
+        String hueID = hueIDsByItem.get(itemName);
+        if (hueID != null) {
+            invalidateLight(hueID);
+        }
+    }
+
+    /**
+     * Invalidates the light with the given hue ID.
+     *
+     * @param hueID The hue ID of the light
+     */
+    public synchronized void invalidateLight(String hueID) {
+        if (lights.remove(hueID) != null) {
+            allLights = null;
+        }
+    }
+
+    /**
+     * Returns the response for a single light. Only the light is serialized again, if it has changed.
+     *
+     * @param hueID The hue ID of the light
+     * @param light The light
+     */
+    public synchronized CachedResponse getLight(String hueID, HueLightEntry light) {
+        return serialize(hueID, light).response;
+    }
+
+    /**
+     * Returns the response for all lights. Only lights that have changed are serialized again, the response is
+     * only assembled again if one of the lights has changed or lights have been added or removed.
+     *
+     * @param currentLights All lights by their hue ID, in the order of the response
+     */
+    public synchronized CachedResponse getAllLights(Map<String, HueLightEntry> currentLights) {
+        List<SerializedLight> parts = new ArrayList<>(currentLights.size());
+        boolean changed = allLights == null || allLightsParts.size() != currentLights.size();
+        for (Map.Entry<String, HueLightEntry> entry : currentLights.entrySet()) {
+            SerializedLight part = serialize(entry.getKey(), entry.getValue());
+            changed |= parts.size() >= allLightsParts.size() || allLightsParts.get(parts.size()) != part;
+            parts.add(part);
+        }
+
+        CachedResponse response = allLights;
+        if (!changed && response != null) {
+            return response;
+        }
+
+        lights.keySet().retainAll(currentLights.keySet());
+        hueIDsByItem.values().retainAll(currentLights.keySet());
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('{');
+        int i = 0;
+        for (Map.Entry<String, HueLightEntry> entry : currentLights.entrySet()) {
+            if (i > 0) {
+                body.write(',');
+            }
+            byte[] key = gson.toJson(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+            body.write(key, 0, key.length);
+            body.write(':');
+            byte[] light = parts.get(i++).response.body;
+            body.write(light, 0, light.length);
+        }
+        body.write('}');
+
+        response = new CachedResponse(body.toByteArray(), nextEtag());
+        allLights = response;
+        allLightsParts = parts;
+        return response;
+    }
+
+    private SerializedLight serialize(String hueID, HueLightEntry light) {
+        SerializedLight serialized = lights.get(hueID);
+        if (serialized != null && serialized.light == light && serialized.item == light.item) {
+            return serialized;
+        }
+        byte[] body = gson.toJson(light).getBytes(StandardCharsets.UTF_8);
+        serialized = new SerializedLight(light, light.item, new CachedResponse(body, nextEtag()));
+        lights.put(hueID, serialized);
+        hueIDsByItem.put(light.item.getName(), hueID);
+        return serialized;
+    }
+
+    private EntityTag nextEtag() {
+        return new EntityTag(etagPrefix + Long.toHexString(++version));
+    }
+}
@@ -17,8 +17,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
@@ -35,9 +33,13 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
@@ -85,11 +87,23 @@ import org.slf4j.LoggerFactory;
         service = { UpnpServer.class, EventHandler.class })
 public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConfigWithRuntime>, EventHandler {
     /**
-     * Used by async IO. This is our context object class.
+     * Used by async IO. This is our context object class. It also holds the datagrams that wait for the channel to
+     * become writable.
      */
     static class ClientRecord {
         public @Nullable SocketAddress clientAddress;
         public ByteBuffer buffer = ByteBuffer.allocate(1000);
+        public final Deque<PendingDatagram> pending = new ArrayDeque<>();
+    }
+
+    static class PendingDatagram {
+        final ByteBuffer data;
+        final SocketAddress target;
+
+        PendingDatagram(ByteBuffer data, SocketAddress target) {
+            this.data = data;
+            this.target = target;
+        }
     }
 
     public static final String DISCOVERY_FILE = "/description.xml";
@@ -100,13 +114,29 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
      * Send a keep alive every 2 minutes
      */
     private static final int CACHE_MSECS = 120 * 1000;
+    /**
+     * Echo devices repeat their M-SEARCH requests. A client (address and port) is answered once in this interval.
+     */
+    static final int RESPONSE_INTERVAL_MSECS = 1000;
+    /**
+     * Datagrams that wait for a channel to become writable. Further responses are dropped during a discovery storm.
+     */
+    static final int MAX_PENDING_DATAGRAMS = 64;
+    /**
+     * Clients that were answered longer than {@link #RESPONSE_INTERVAL_MSECS} ago are forgotten above this number.
+     */
+    private static final int MAX_REMEMBERED_CLIENTS = 256;
+    private static final byte[] M_SEARCH = "M-SEARCH".getBytes(StandardCharsets.US_ASCII);
 
     private final Logger logger = LoggerFactory.getLogger(UpnpServer.class);
 
     public final InetAddress MULTI_ADDR_IPV4;
     public final InetAddress MULTI_ADDR_IPV6;
-    private String[] stVersions = { "", "", "" };
-    private String notifyMsg = "";
+    // pre-rendered response datagrams, duplicated for sending
+    private volatile ByteBuffer[] searchResponses = {};
+    private volatile ByteBuffer notifyResponse = ByteBuffer.allocate(0);
+    // only accessed by the upnp thread
+    private final Map<SocketAddress, Long> lastResponses = new HashMap<>();
 
     //// objects, set within activate()
     protected @NonNullByDefault({}) String xmlDoc;
@@ -214,28 +244,34 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
 
         final String[] stVersions = { "upnp:rootdevice", "urn:schemas-upnp-org:device:basic:1",
                 "uuid:" + config.config.uuid };
+        final ByteBuffer[] searchResponses = new ByteBuffer[stVersions.length];
         for (int i = 0; i < stVersions.length; ++i) {
-            this.stVersions[i] = String.format(
+            searchResponses[i] = render(String.format(
                     "HTTP/1.1 200 OK\r\n" + "HOST: %s:%d\r\n" + "EXT:\r\n" + "CACHE-CONTROL: max-age=%d\r\n"
                             + "LOCATION: %s\r\n" + "SERVER: Linux/3.14.0 UPnP/1.0 IpBridge/%s\r\n"
                             + "hue-bridgeid: %s\r\n" + "ST: %s\r\n" + "USN: uuid:%s\r\n\r\n",
                     r.getMulticastAddress(), UPNP_PORT, CACHE_MSECS / 1000, baseurl, // host:port,
                                                                                      // cache,location
                     cs.ds.config.apiversion, cs.ds.config.bridgeid, // version, bridgeid
-                    stVersions[i], config.config.uuid);
+                    stVersions[i], config.config.uuid));
         }
+        this.searchResponses = searchResponses;
 
-        this.notifyMsg = String.format(
+        this.notifyResponse = render(String.format(
                 "NOTIFY * HTTP/1.1\r\n" + "HOST: %s:%d\r\n" + "CACHE-CONTROL: max-age=%d\r\n" + "LOCATION: %s\r\n"
                         + "SERVER: Linux/3.14.0 UPnP/1.0 IpBridge/%s\r\nNTS: ssdp:alive\r\nNT: upnp:rootdevice\r\n"
                         + "USN: uuid:%s::upnp:rootdevice\r\n" + "hue-bridgeid: %s\r\n\r\n",
                 r.getMulticastAddress(), UPNP_PORT, CACHE_MSECS / 1000, baseurl, // host:port, cache,location
-                cs.ds.config.apiversion, config.config.uuid, cs.ds.config.bridgeid);// version, uuid, bridgeid
+                cs.ds.config.apiversion, config.config.uuid, cs.ds.config.bridgeid));// version, uuid, bridgeid
 
         xmlDocWithAddress = String.format(xmlDoc, urlBase, r.addressString, cs.ds.config.bridgeid, cs.ds.config.uuid,
                 cs.ds.config.devicename);
     }
 
+    private static ByteBuffer render(String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
     protected @Nullable HueEmulationConfigWithRuntime performAddressTest(
             @Nullable HueEmulationConfigWithRuntime config) {
         if (config == null) {
@@ -372,45 +408,102 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
 
     private void handleRead(SelectionKey key) throws IOException {
         logger.trace("upnp thread handle received message");
-        DatagramChannel channel = (DatagramChannel) key.channel();
-        ClientRecord clntRec = (ClientRecord) key.attachment();
-        clntRec.buffer.clear(); // Prepare buffer for receiving
-        clntRec.clientAddress = channel.receive(clntRec.buffer);
-        InetSocketAddress recAddress = (InetSocketAddress) clntRec.clientAddress;
-        if (recAddress == null) { // Did we receive something?
-            return;
+        receive((DatagramChannel) key.channel(), (ClientRecord) key.attachment(), System.currentTimeMillis());
+        flush(key);
+    }
+
+    /**
+     * Reads all received datagrams and queues the pre-rendered responses for each M-SEARCH request. Repeated
+     * requests of a client are only answered once per {@link #RESPONSE_INTERVAL_MSECS}.
+     */
+    void receive(DatagramChannel channel, ClientRecord clntRec, long now) throws IOException {
+        while (true) {
+            clntRec.buffer.clear(); // Prepare buffer for receiving
+            SocketAddress clientAddress = channel.receive(clntRec.buffer);
+            clntRec.clientAddress = clientAddress;
+            if (clientAddress == null) { // Nothing received anymore
+                break;
+            }
+            clntRec.buffer.flip();
+            if (!isSearchRequest(clntRec.buffer)) {
+                continue;
+            }
+
+            Long lastResponse = lastResponses.get(clientAddress);
+            if (lastResponse != null && now - lastResponse < RESPONSE_INTERVAL_MSECS) {
+                logger.trace("Ignore repeated M-SEARCH of {}", clientAddress);
+                continue;
+            }
+            if (lastResponses.size() > MAX_REMEMBERED_CLIENTS) {
+                lastResponses.values().removeIf(time -> now - time >= RESPONSE_INTERVAL_MSECS);
+            }
+            lastResponses.put(clientAddress, now);
+
+            for (ByteBuffer response : searchResponses) {
+                queue(clntRec, response, clientAddress);
+            }
         }
-        String data = new String(clntRec.buffer.array(), StandardCharsets.UTF_8);
-        if (!data.startsWith("M-SEARCH")) {
-            return;
+    }
+
+    private static boolean isSearchRequest(ByteBuffer buffer) {
+        if (buffer.remaining() < M_SEARCH.length) {
+            return false;
+        }
+        for (int i = 0; i < M_SEARCH.length; ++i) {
+            if (buffer.get(buffer.position() + i) != M_SEARCH[i]) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        try (DatagramSocket sendSocket = new DatagramSocket()) {
-            sendUPNPDatagrams(sendSocket, recAddress.getAddress(), recAddress.getPort());
+    private void queue(ClientRecord clntRec, ByteBuffer datagram, SocketAddress target) {
+        if (clntRec.pending.size() >= MAX_PENDING_DATAGRAMS) {
+            logger.debug("Too many pending UPNP responses, dropping response to {}", target);
+            return;
         }
+        clntRec.pending.add(new PendingDatagram(datagram.duplicate(), target));
+    }
+
+    /**
+     * Sends the pending datagrams of the channel. The remaining ones are sent as soon as the channel is writable
+     * again.
+     */
+    private void flush(SelectionKey key) {
+        boolean sent = send((DatagramChannel) key.channel(), (ClientRecord) key.attachment());
+        key.interestOps(sent ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
     }
 
-    private void sendUPNPDatagrams(DatagramSocket sendSocket, InetAddress address, int port) {
-        logger.trace("upnp thread send announcement");
-        for (String msg : stVersions) {
-            DatagramPacket response = new DatagramPacket(msg.getBytes(), msg.length(), address, port);
+    /**
+     * Sends the pending datagrams until the socket buffer is full.
+     *
+     * @return true if all pending datagrams were sent
+     */
+    boolean send(DatagramChannel channel, ClientRecord clntRec) {
+        PendingDatagram datagram;
+        while ((datagram = clntRec.pending.peek()) != null) {
             try {
-                logger.trace("Sending to {}:{}", address.getHostAddress(), port);
-                sendSocket.send(response);
+                if (channel.send(datagram.data, datagram.target) == 0) {
+                    break;
+                }
+                logger.trace("Sent to {}", datagram.target);
             } catch (IOException e) {
                 logger.warn("Could not send UPNP response: {}", e.getMessage());
             }
+            clntRec.pending.poll();
         }
+        return clntRec.pending.isEmpty();
     }
 
-    private void sendUPNPNotify(DatagramSocket sendSocket, InetAddress address, int port) {
-        DatagramPacket response = new DatagramPacket(notifyMsg.getBytes(), notifyMsg.length(), address, port);
-        try {
-            logger.trace("Sending to {}:{}", address.getHostAddress(), port);
-            sendSocket.send(response);
-        } catch (IOException e) {
-            logger.warn("Could not send UPNP response: {}", e.getMessage());
+    private void announce(@Nullable SelectionKey key, ByteBuffer[] datagrams, InetAddress multicastAddress) {
+        if (key == null) {
+            return;
         }
+        InetSocketAddress target = new InetSocketAddress(multicastAddress, UPNP_PORT);
+        for (ByteBuffer datagram : datagrams) {
+            queue((ClientRecord) key.attachment(), datagram, target);
+        }
+        flush(key);
     }
 
     @Override
@@ -447,20 +540,22 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 return;
             }
 
+            @Nullable
+            SelectionKey keyV4 = null;
+            @Nullable
+            SelectionKey keyV6 = null;
             if (hasIPv4) {
+                useMulticastInterface(channelV4, config.address);
                 channelV4.configureBlocking(false);
-                channelV4.register(selector, SelectionKey.OP_READ, new ClientRecord());
-                try (DatagramSocket sendSocket = new DatagramSocket(new InetSocketAddress(config.address, 0))) {
-                    sendUPNPDatagrams(sendSocket, MULTI_ADDR_IPV4, UPNP_PORT);
-                }
+                keyV4 = channelV4.register(selector, SelectionKey.OP_READ, new ClientRecord());
             }
             if (hasIPv6) {
                 channelV6.configureBlocking(false);
-                channelV6.register(selector, SelectionKey.OP_READ, new ClientRecord());
-                try (DatagramSocket sendSocket = new DatagramSocket()) {
-                    sendUPNPDatagrams(sendSocket, MULTI_ADDR_IPV6, UPNP_PORT);
-                }
+                keyV6 = channelV6.register(selector, SelectionKey.OP_READ, new ClientRecord());
             }
+            lastResponses.clear();
+            announce(keyV4, searchResponses, MULTI_ADDR_IPV4);
+            announce(keyV6, searchResponses, MULTI_ADDR_IPV6);
 
             threadContext.future.complete(threadContext);
             Instant time = Instant.now();
@@ -471,7 +566,10 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 Iterator<SelectionKey> keyIter = selector.selectedKeys().iterator();
                 while (keyIter.hasNext()) {
                     SelectionKey key = keyIter.next();
-                    if (key.isReadable()) {
+                    if (key.isValid() && key.isWritable()) {
+                        flush(key);
+                    }
+                    if (key.isValid() && key.isReadable()) {
                         handleRead(key);
                     }
                     keyIter.remove();
@@ -480,16 +578,9 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 if (time.plusMillis(CACHE_MSECS - 200).isBefore(Instant.now())) {
                     logger.trace("upnp thread send periodic announcement");
                     time = Instant.now();
-                    if (hasIPv4) {
-                        try (DatagramSocket sendSocket = new DatagramSocket(new InetSocketAddress(config.address, 0))) {
-                            sendUPNPNotify(sendSocket, MULTI_ADDR_IPV4, UPNP_PORT);
-                        }
-                    }
-                    if (hasIPv6) {
-                        try (DatagramSocket sendSocket = new DatagramSocket()) {
-                            sendUPNPNotify(sendSocket, MULTI_ADDR_IPV6, UPNP_PORT);
-                        }
-                    }
+                    ByteBuffer[] notify = { notifyResponse };
+                    announce(keyV4, notify, MULTI_ADDR_IPV4);
+                    announce(keyV6, notify, MULTI_ADDR_IPV6);
                 }
             }
         } catch (ClosedSelectorException ignored) {
@@ -501,6 +592,21 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
         }
     }
 
+    /**
+     * Sends the multicast announcements through the interface of the advertised address, like a socket bound to
+     * that address would do.
+     */
+    private void useMulticastInterface(DatagramChannel channel, InetAddress address) {
+        try {
+            NetworkInterface networkInterface = NetworkInterface.getByInetAddress(address);
+            if (networkInterface != null) {
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not use the interface of {} for UPNP announcements: {}", address, e.getMessage());
+        }
+    }
+
     @Nullable
     private DatagramChannel createBoundDataGramChannelOrNull(StandardProtocolFamily family) throws IOException {
         try {
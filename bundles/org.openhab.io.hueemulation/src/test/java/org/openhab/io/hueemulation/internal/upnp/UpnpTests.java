@@ -15,11 +15,17 @@ package org.openhab.io.hueemulation.internal.upnp;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -40,8 +46,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.mockito.stubbing.OngoingStubbing;
 import org.openhab.io.hueemulation.internal.rest.CommonSetup;
 import org.openhab.io.hueemulation.internal.rest.LightsAndGroups;
+import org.openhab.io.hueemulation.internal.upnp.UpnpServer.ClientRecord;
+import org.openhab.io.hueemulation.internal.upnp.UpnpServer.PendingDatagram;
 import org.osgi.framework.Bundle;
 import org.osgi.util.tracker.ServiceTracker;
 
@@ -51,6 +61,10 @@ import org.osgi.util.tracker.ServiceTracker;
  * @author David Graeff - Initial contribution
  */
 public class UpnpTests {
+    private static final String M_SEARCH = "M-SEARCH * HTTP/1.1\r\nST: ssdp:all\r\n\r\n";
+    private static final SocketAddress CLIENT_A = new InetSocketAddress(InetAddress.getLoopbackAddress(), 50001);
+    private static final SocketAddress CLIENT_B = new InetSocketAddress(InetAddress.getLoopbackAddress(), 50002);
+
     protected static CommonSetup commonSetup = null;
     protected UpnpServer subject;
     protected static OSGiMainHandler mainHttpHandler;
@@ -152,4 +166,114 @@ public class UpnpTests {
         subject.deactivate();
         assertThat(subject.upnpAnnouncementThreadRunning(), is(false));
     }
+
+    @Test
+    public void repeatedSearchIsAnsweredOncePerInterval() throws IOException {
+        subject.applyConfiguration(subject.performAddressTest(subject.createConfiguration(null)));
+        ClientRecord clientRecord = new ClientRecord();
+
+        subject.receive(channelReceiving(datagram(CLIENT_A, M_SEARCH), datagram(CLIENT_A, M_SEARCH)), clientRecord,
+                1000);
+        // one response per search target
+        assertThat(clientRecord.pending.size(), is(3));
+        for (PendingDatagram datagram : clientRecord.pending) {
+            assertThat(datagram.target, is(CLIENT_A));
+            assertThat(StandardCharsets.UTF_8.decode(datagram.data.duplicate()).toString(),
+                    CoreMatchers.startsWith("HTTP/1.1 200 OK"));
+        }
+
+        // still within the interval
+        subject.receive(channelReceiving(datagram(CLIENT_A, M_SEARCH)), clientRecord,
+                1000 + UpnpServer.RESPONSE_INTERVAL_MSECS - 1);
+        assertThat(clientRecord.pending.size(), is(3));
+
+        // another client is answered
+        subject.receive(channelReceiving(datagram(CLIENT_B, M_SEARCH)), clientRecord, 1500);
+        assertThat(clientRecord.pending.size(), is(6));
+
+        // after the interval
+        subject.receive(channelReceiving(datagram(CLIENT_A, M_SEARCH)), clientRecord,
+                1000 + UpnpServer.RESPONSE_INTERVAL_MSECS);
+        assertThat(clientRecord.pending.size(), is(9));
+    }
+
+    @Test
+    public void otherMessagesAreNotAnswered() throws IOException {
+        subject.applyConfiguration(subject.performAddressTest(subject.createConfiguration(null)));
+        ClientRecord clientRecord = new ClientRecord();
+
+        subject.receive(channelReceiving(datagram(CLIENT_A, "NOTIFY * HTTP/1.1\r\n\r\n"), datagram(CLIENT_B, "M-SE")),
+                clientRecord, 1000);
+
+        assertThat(clientRecord.pending.size(), is(0));
+    }
+
+    @Test
+    public void pendingResponsesAreBounded() throws IOException {
+        subject.applyConfiguration(subject.performAddressTest(subject.createConfiguration(null)));
+        ClientRecord clientRecord = new ClientRecord();
+
+        for (int port = 50000; port < 50100; port++) {
+            subject.receive(channelReceiving(
+                    datagram(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), M_SEARCH)), clientRecord,
+                    1000);
+        }
+
+        assertThat(clientRecord.pending.size(), is(UpnpServer.MAX_PENDING_DATAGRAMS));
+    }
+
+    @Test
+    public void responsesWaitUntilTheChannelIsWritable() throws IOException {
+        subject.applyConfiguration(subject.performAddressTest(subject.createConfiguration(null)));
+        ClientRecord clientRecord = new ClientRecord();
+        subject.receive(channelReceiving(datagram(CLIENT_A, M_SEARCH)), clientRecord, 1000);
+        DatagramChannel channel = mock(DatagramChannel.class);
+        // the socket buffer is full after the first datagram
+        when(channel.send(any(ByteBuffer.class), any(SocketAddress.class))).thenReturn(100, 0);
+
+        assertThat(subject.send(channel, clientRecord), is(false));
+        assertThat(clientRecord.pending.size(), is(2));
+
+        when(channel.send(any(ByteBuffer.class), any(SocketAddress.class))).thenReturn(100);
+
+        assertThat(subject.send(channel, clientRecord), is(true));
+        assertThat(clientRecord.pending.size(), is(0));
+        verify(channel, times(4)).send(any(ByteBuffer.class), any(SocketAddress.class));
+    }
+
+    @Test
+    public void failedResponseIsDropped() throws IOException {
+        subject.applyConfiguration(subject.performAddressTest(subject.createConfiguration(null)));
+        ClientRecord clientRecord = new ClientRecord();
+        subject.receive(channelReceiving(datagram(CLIENT_A, M_SEARCH)), clientRecord, 1000);
+        DatagramChannel channel = mock(DatagramChannel.class);
+        when(channel.send(any(ByteBuffer.class), any(SocketAddress.class))).thenThrow(new IOException("unreachable"))
+                .thenReturn(100);
+
+        assertThat(subject.send(channel, clientRecord), is(true));
+        assertThat(clientRecord.pending.size(), is(0));
+        verify(channel, times(3)).send(any(ByteBuffer.class), any(SocketAddress.class));
+    }
+
+    /**
+     * @return a channel that receives the given datagrams and then nothing anymore
+     */
+    @SafeVarargs
+    private static DatagramChannel channelReceiving(Answer<SocketAddress>... datagrams) throws IOException {
+        DatagramChannel channel = mock(DatagramChannel.class);
+        OngoingStubbing<SocketAddress> stubbing = when(channel.receive(any(ByteBuffer.class)));
+        for (Answer<SocketAddress> datagram : datagrams) {
+            stubbing = stubbing.thenAnswer(datagram);
+        }
+        stubbing.thenReturn(null);
+        return channel;
+    }
+
+    private static Answer<SocketAddress> datagram(SocketAddress from, String content) {
+        return invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            buffer.put(content.getBytes(StandardCharsets.US_ASCII));
+            return from;
+        };
+    }
 }
@@ -18,7 +18,6 @@ import java.time.ZonedDateTime;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -41,17 +40,17 @@ import org.slf4j.LoggerFactory;
 @NonNullByDefault
 public abstract class AbstractBufferedPersistenceService<T> implements PersistenceService {
 
-    private static final long BUFFER_OFFER_TIMEOUT_MILLIS = 500;
-
     private final Logger logger = LoggerFactory.getLogger(AbstractBufferedPersistenceService.class);
     protected @Nullable BlockingQueue<T> buffer;
 
     private boolean writeImmediately;
+    private int flushThreshold;
 
     protected void resetWithBufferSize(int bufferSize) {
         int capacity = Math.max(1, bufferSize);
         buffer = new ArrayBlockingQueue<>(capacity, true);
         writeImmediately = bufferSize == 0;
+        flushThreshold = capacity / 2;
     }
 
     protected abstract T persistenceItemFromState(String name, State state, ZonedDateTime time);
@@ -60,6 +59,12 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
 
     protected abstract void flushBufferedData();
 
+    /**
+     * Asks for the buffered data to be flushed in the background as soon as possible, without waiting for the next
+     * commit interval. Called when the buffer is filling up.
+     */
+    protected abstract void requestFlush();
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -101,29 +106,24 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
                 logger.debug("Buffered item {} in {} ms. Total time for store(): {} [{}]", realName,
                         System.currentTimeMillis() - bufferStart, System.currentTimeMillis() - storeStart, uuid);
             } else {
-                logger.debug(
-                        "Buffer is full. Writing buffered data immediately and trying again. Consider increasing bufferSize");
-                // Buffer is full, commit it immediately
-                flushBufferedData();
-                boolean buffered2 = addToBuffer(persistenceItem);
-                if (buffered2) {
-                    logger.debug("Buffered item in {} ms (2nd try, flushed buffer in-between) [{}]",
-                            System.currentTimeMillis() - bufferStart, uuid);
-                } else {
-                    // The unlikely case happened -- buffer got full again immediately
-                    logger.warn("Buffering failed for the second time -- Too small bufferSize? Discarding data [{}]",
-                            uuid);
-                }
+                // Buffer is full, let the background flusher drain it. The storing thread never writes itself.
+                requestFlush();
+                logger.warn(
+                        "Buffer is full, discarding data of item {} [{}]. Consider increasing bufferSize or decreasing bufferCommitIntervalMillis",
+                        realName, uuid);
             }
         }
     }
 
     protected boolean addToBuffer(T persistenceItem) {
-        try {
-            return buffer != null && buffer.offer(persistenceItem, BUFFER_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            logger.warn("Interrupted when trying to buffer data! Dropping data");
+        BlockingQueue<T> buffer = this.buffer;
+        if (buffer == null || !buffer.offer(persistenceItem)) {
             return false;
         }
+        if (!writeImmediately && buffer.remainingCapacity() <= flushThreshold) {
+            // Buffer is filling up faster than the commit interval drains it
+            requestFlush();
+        }
+        return true;
     }
 }
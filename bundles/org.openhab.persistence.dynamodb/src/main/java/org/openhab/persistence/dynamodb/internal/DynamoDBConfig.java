@@ -39,6 +39,7 @@ public class DynamoDBConfig {
     public static final long DEFAULT_WRITE_CAPACITY_UNITS = 1;
     public static final long DEFAULT_BUFFER_COMMIT_INTERVAL_MILLIS = 1000;
     public static final int DEFAULT_BUFFER_SIZE = 1000;
+    public static final int DEFAULT_WRITE_CONCURRENCY = 4;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBConfig.class);
 
@@ -50,6 +51,7 @@ public class DynamoDBConfig {
     private long writeCapacityUnits = DEFAULT_WRITE_CAPACITY_UNITS;
     private long bufferCommitIntervalMillis = DEFAULT_BUFFER_COMMIT_INTERVAL_MILLIS;
     private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int writeConcurrency = DEFAULT_WRITE_CONCURRENCY;
 
     /**
      *
@@ -141,8 +143,17 @@ public class DynamoDBConfig {
                 bufferSize = Integer.parseInt(bufferSizeParam);
             }
 
+            final int writeConcurrency;
+            String writeConcurrencyParam = (String) config.get("writeConcurrency");
+            if (writeConcurrencyParam == null || writeConcurrencyParam.isBlank()) {
+                LOGGER.debug("Write concurrency: {}", DEFAULT_WRITE_CONCURRENCY);
+                writeConcurrency = DEFAULT_WRITE_CONCURRENCY;
+            } else {
+                writeConcurrency = Integer.parseInt(writeConcurrencyParam);
+            }
+
             return new DynamoDBConfig(region, credentials, table, createTable, readCapacityUnits, writeCapacityUnits,
-                    bufferCommitIntervalMillis, bufferSize);
+                    bufferCommitIntervalMillis, bufferSize, writeConcurrency);
         } catch (Exception e) {
             LOGGER.error("Error with configuration", e);
             return null;
@@ -151,6 +162,13 @@ public class DynamoDBConfig {
 
     public DynamoDBConfig(Regions region, AWSCredentials credentials, String table, boolean createTable,
             long readCapacityUnits, long writeCapacityUnits, long bufferCommitIntervalMillis, int bufferSize) {
+        this(region, credentials, table, createTable, readCapacityUnits, writeCapacityUnits, bufferCommitIntervalMillis,
+                bufferSize, DEFAULT_WRITE_CONCURRENCY);
+    }
+
+    public DynamoDBConfig(Regions region, AWSCredentials credentials, String table, boolean createTable,
+            long readCapacityUnits, long writeCapacityUnits, long bufferCommitIntervalMillis, int bufferSize,
+            int writeConcurrency) {
         this.region = region;
         this.credentials = credentials;
         this.tablePrefix = table;
@@ -159,6 +177,7 @@ public class DynamoDBConfig {
         this.writeCapacityUnits = writeCapacityUnits;
         this.bufferCommitIntervalMillis = bufferCommitIntervalMillis;
         this.bufferSize = bufferSize;
+        this.writeConcurrency = writeConcurrency;
     }
 
     public AWSCredentials getCredentials() {
@@ -192,4 +211,8 @@ public class DynamoDBConfig {
     public int getBufferSize() {
         return bufferSize;
     }
+
+    public int getWriteConcurrency() {
+        return writeConcurrency;
+    }
 }
@@ -23,10 +23,19 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -54,6 +63,7 @@ import org.slf4j.LoggerFactory;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
@@ -64,6 +74,7 @@ import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
@@ -76,6 +87,10 @@ import com.amazonaws.services.dynamodbv2.model.WriteRequest;
  *
  * The service creates tables automatically, one for numbers, and one for strings.
  *
+ * Buffered data is written in the background, in batches of at most 25 items per table which are sent in
+ * parallel. When DynamoDB throttles the writes, the number of parallel batches and the batch size are reduced, and
+ * they are slowly increased again while the writes succeed.
+ *
  * @see AbstractDynamoDBItem.fromState for details how different items are persisted
  *
  * @author Sami Salonen - Initial contribution
@@ -163,6 +178,8 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     private static final int WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS = 5000;
     private static final int[] WAIT_MILLIS_IN_RETRIES = new int[] { 100, 100, 200, 300, 500 };
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
+    /** maximum number of items in a single BatchWriteItem request */
+    private static final int MAX_BATCH_SIZE = 25;
 
     private final ItemRegistry itemRegistry;
     private @Nullable DynamoDBClient db;
@@ -173,12 +190,26 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
             new NamedThreadFactory(DYNAMODB_THREADPOOL_NAME));
     private @Nullable ScheduledFuture<?> writeBufferedDataFuture;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ThreadPoolExecutor writeExecutor = createWriteExecutor();
+
+    // adapted to throttling, only accessed while flushing
+    private int writeConcurrency = DynamoDBConfig.DEFAULT_WRITE_CONCURRENCY;
+    private int batchSize = MAX_BATCH_SIZE;
 
     @Activate
     public DynamoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
 
+    private static ThreadPoolExecutor createWriteExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DynamoDBConfig.DEFAULT_WRITE_CONCURRENCY,
+                DynamoDBConfig.DEFAULT_WRITE_CONCURRENCY, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(DYNAMODB_THREADPOOL_NAME + "-write"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * For testing. Allows access to underlying DynamoDBClient.
      *
@@ -212,6 +243,7 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
 
         writeBufferedDataFuture = null;
         resetWithBufferSize(dbConfig.getBufferSize());
+        setWriteConcurrency(dbConfig.getWriteConcurrency());
         long commitIntervalMillis = dbConfig.getBufferCommitIntervalMillis();
         if (commitIntervalMillis > 0) {
             writeBufferedDataFuture = scheduler.scheduleWithFixedDelay(new Runnable() {
@@ -242,9 +274,29 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
             writeBufferedDataFuture.cancel(false);
             writeBufferedDataFuture = null;
         }
+        if (isProperlyConfigured) {
+            try {
+                flushBufferedData();
+            } catch (RuntimeException e) {
+                logger.warn("Flushing of buffered data failed on deactivation", e);
+            }
+        }
         resetClient();
     }
 
+    private synchronized void setWriteConcurrency(int maxConcurrency) {
+        int poolSize = Math.max(1, maxConcurrency);
+        if (poolSize > writeExecutor.getMaximumPoolSize()) {
+            writeExecutor.setMaximumPoolSize(poolSize);
+            writeExecutor.setCorePoolSize(poolSize);
+        } else {
+            writeExecutor.setCorePoolSize(poolSize);
+            writeExecutor.setMaximumPoolSize(poolSize);
+        }
+        writeConcurrency = poolSize;
+        batchSize = MAX_BATCH_SIZE;
+    }
+
     /**
      * Initializes DynamoDBClient (db field)
      *
@@ -389,28 +441,105 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     }
 
     @Override
-    protected void flushBufferedData() {
-        if (buffer != null && buffer.isEmpty()) {
+    protected void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                try {
+                    flushBufferedData();
+                } catch (RuntimeException e) {
+                    logger.warn("Execution of requested flushing of buffered data failed unexpectedly.", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected synchronized void flushBufferedData() {
+        BlockingQueue<DynamoDBItem<?>> buffer = this.buffer;
+        if (buffer == null || buffer.isEmpty()) {
             return;
         }
         logger.debug("Writing buffered data. Buffer size: {}", buffer.size());
 
         for (;;) {
             Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer();
-            // Write batch of data, one table at a time
-            for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
-                String tableName = entry.getKey();
-                Deque<DynamoDBItem<?>> batch = entry.getValue();
-                if (!batch.isEmpty()) {
-                    flushBatch(getDBMapper(tableName), batch);
-                }
+            if (!writeBatches(itemsByTable)) {
+                // Interrupted
+                return;
             }
-            if (buffer != null && buffer.isEmpty()) {
+            if (buffer.isEmpty()) {
                 break;
             }
         }
     }
 
+    /**
+     * Writes the data of all tables in batches of at most {@link #batchSize} items, running at most
+     * {@link #writeConcurrency} batches at the same time.
+     *
+     * @param itemsByTable data to write, by table name
+     * @return false if interrupted while waiting for the batches to finish
+     */
+    private boolean writeBatches(Map<String, Deque<DynamoDBItem<?>>> itemsByTable) {
+        Deque<Callable<Boolean>> batches = new ArrayDeque<>();
+        for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
+            DynamoDBMapper mapper = getDBMapper(entry.getKey());
+            Deque<DynamoDBItem<?>> items = entry.getValue();
+            while (!items.isEmpty()) {
+                Deque<DynamoDBItem<?>> batch = new ArrayDeque<>(batchSize);
+                while (!items.isEmpty() && batch.size() < batchSize) {
+                    batch.add(items.poll());
+                }
+                batches.add(() -> flushBatch(mapper, batch));
+            }
+        }
+
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(writeExecutor);
+        int running = 0;
+        while (!batches.isEmpty() || running > 0) {
+            while (!batches.isEmpty() && running < writeConcurrency) {
+                completionService.submit(batches.poll());
+                running++;
+            }
+            try {
+                Future<Boolean> result = completionService.take();
+                running--;
+                adaptToThrottling(isThrottled(result));
+            } catch (InterruptedException e) {
+                logger.debug("Interrupted while writing data!");
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isThrottled(Future<Boolean> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            logger.warn("Writing batch of data failed unexpectedly", e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * Halves the number of parallel batches and the batch size when DynamoDB throttled a batch, and increases them
+     * one step at a time while batches succeed.
+     */
+    private void adaptToThrottling(boolean throttled) {
+        if (throttled) {
+            writeConcurrency = Math.max(1, writeConcurrency / 2);
+            batchSize = Math.max(1, batchSize / 2);
+            logger.debug("Writes are throttled, continuing with {} parallel batches of at most {} items",
+                    writeConcurrency, batchSize);
+        } else {
+            writeConcurrency = Math.min(writeExecutor.getMaximumPoolSize(), writeConcurrency + 1);
+            batchSize = Math.min(MAX_BATCH_SIZE, batchSize + 1);
+        }
+    }
+
     private Map<String, Deque<DynamoDBItem<?>>> readBuffer() {
         Map<String, Deque<DynamoDBItem<?>>> batchesByTable = new HashMap<>(2);
         // Get batch of data
@@ -436,15 +565,18 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
      *
      * @param mapper mapper associated with the batch
      * @param batch batch of data to write to DynamoDB
+     * @return whether DynamoDB throttled the writes
      */
-    private void flushBatch(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch) {
+    private boolean flushBatch(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch) {
         long currentTimeMillis = System.currentTimeMillis();
+        boolean throttled = false;
         List<FailedBatch> failed = mapper.batchSave(batch);
         for (FailedBatch failedBatch : failed) {
             if (failedBatch.getException() instanceof ResourceNotFoundException) {
                 // Table did not exist. Try again after creating table
                 retryFlushAfterCreatingTable(mapper, batch, failedBatch);
             } else {
+                throttled |= isThrottled(failedBatch);
                 logger.debug("Batch failed with {}. Retrying next with exponential back-off",
                         failedBatch.getException().getMessage());
                 new ExponentialBackoffRetry(failedBatch.getUnprocessedItems()).run();
@@ -458,6 +590,17 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
                     "flushBatch ended with {} items in {} ms: {}. There were some failed batches that were retried -- check logs for ERRORs to see if writes were successful",
                     batch.size(), System.currentTimeMillis() - currentTimeMillis, batch);
         }
+        return throttled;
+    }
+
+    private boolean isThrottled(FailedBatch failedBatch) {
+        Exception exception = failedBatch.getException();
+        if (exception instanceof AmazonServiceException) {
+            return exception instanceof ProvisionedThroughputExceededException
+                    || RetryUtils.isThrottlingException((AmazonServiceException) exception);
+        }
+        // The mapper gave up retrying unprocessed items, which DynamoDB returns when capacity is exceeded
+        return !failedBatch.getUnprocessedItems().isEmpty();
     }
 
     /**
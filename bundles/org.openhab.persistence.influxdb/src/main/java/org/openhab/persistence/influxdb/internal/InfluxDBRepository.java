@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 
 /**
  * Manages InfluxDB server interaction maintaining client connection
@@ -66,9 +67,17 @@ public interface InfluxDBRepository {
     List<InfluxRow> query(String query);
 
     /**
-     * Write point to database
+     * Write point to database. The point is buffered and written in the background.
      *
      * @param influxPoint Point to write
      */
     void write(InfluxPoint influxPoint);
+
+    /**
+     * Returns the buffer of points to write, which provides the write statistics
+     *
+     * @return the write buffer, or null if not connected
+     */
+    @Nullable
+    InfluxDBWriteBuffer getWriteBuffer();
 }
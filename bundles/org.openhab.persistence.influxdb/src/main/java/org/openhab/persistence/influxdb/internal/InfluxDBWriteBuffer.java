@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers the points to write and writes them in batches in the background, so storing an item never waits for the
+ * database.
+ *
+ * A batch is written when {@code batchSize} points are buffered, or otherwise every {@code flushInterval} plus a
+ * random delay of up to {@code jitterInterval} milliseconds. Batches that fail are kept and written again with the
+ * next batch. If more than {@code retryBufferLimit} points are buffered, the oldest ones are moved to the spill file,
+ * or are dropped if no spill file is configured. Spilled points are written again once the database accepts writes.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteBuffer {
+
+    /**
+     * Writes a batch of points to the database, waiting until they are written.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        /**
+         * @throws IOException if the points were not written
+         */
+        void write(List<InfluxPoint> points) throws IOException;
+    }
+
+    private static final String THREAD_POOL_NAME = "influxdb";
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWriteBuffer.class);
+
+    private final BatchWriter writer;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME);
+    private final int batchSize;
+    private final int flushInterval;
+    private final int jitterInterval;
+    private final int retryBufferLimit;
+    private final @Nullable InfluxPointSpillFile spillFile;
+
+    private final Deque<InfluxPoint> points = new ArrayDeque<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private @Nullable ScheduledFuture<?> flushJob;
+    private volatile boolean closed;
+
+    private final AtomicLong writtenPoints = new AtomicLong();
+    private final AtomicLong droppedPoints = new AtomicLong();
+    private final AtomicLong spilledPoints = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeTimeTotal = new AtomicLong();
+    private final AtomicLong writeTimeMax = new AtomicLong();
+    private volatile long lastWriteTime;
+
+    public InfluxDBWriteBuffer(InfluxDBConfiguration configuration, BatchWriter writer) {
+        this.writer = writer;
+        this.batchSize = configuration.getBatchSize();
+        this.flushInterval = configuration.getFlushInterval();
+        this.jitterInterval = configuration.getJitterInterval();
+        this.retryBufferLimit = configuration.getRetryBufferLimit();
+        String spillFileName = configuration.getSpillFile();
+        this.spillFile = spillFileName.isEmpty() ? null
+                : new InfluxPointSpillFile(Paths.get(OpenHAB.getUserDataFolder()).resolve(spillFileName));
+    }
+
+    /**
+     * Starts writing the buffered points in the background.
+     */
+    public synchronized void start() {
+        closed = false;
+        scheduleFlush();
+    }
+
+    private synchronized void scheduleFlush() {
+        if (!closed) {
+            long jitter = jitterInterval > 0 ? ThreadLocalRandom.current().nextLong(jitterInterval + 1) : 0;
+            flushJob = scheduler.schedule(() -> {
+                flush();
+                scheduleFlush();
+            }, flushInterval + jitter, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the background writing. Points that cannot be written anymore are kept in the spill file, if
+     * configured.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            ScheduledFuture<?> job = flushJob;
+            if (job != null) {
+                job.cancel(false);
+                flushJob = null;
+            }
+        }
+        flush();
+        List<InfluxPoint> remaining;
+        synchronized (points) {
+            remaining = new ArrayList<>(points);
+            points.clear();
+        }
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    /**
+     * Adds a point to the buffer. Never waits for the database.
+     */
+    public void add(InfluxPoint point) {
+        int buffered;
+        synchronized (points) {
+            points.add(point);
+            buffered = points.size();
+            if (spillFile == null && buffered > retryBufferLimit) {
+                points.poll();
+                droppedPoints.incrementAndGet();
+                buffered--;
+            } else if (buffered > 2 * retryBufferLimit) {
+                // the spill file is not written fast enough
+                points.poll();
+                droppedPoints.incrementAndGet();
+                buffered--;
+            }
+        }
+        if (buffered >= batchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes all buffered points in batches, until a batch fails.
+     */
+    public void flush() {
+        flushRequested.set(false);
+        synchronized (flushLock) {
+            boolean failed = false;
+            while (!failed) {
+                List<InfluxPoint> batch = new ArrayList<>(batchSize);
+                synchronized (points) {
+                    while (batch.size() < batchSize && !points.isEmpty()) {
+                        batch.add(points.poll());
+                    }
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                failed = !write(batch);
+                if (failed) {
+                    synchronized (points) {
+                        for (int i = batch.size() - 1; i >= 0; i--) {
+                            points.addFirst(batch.get(i));
+                        }
+                    }
+                }
+            }
+
+            InfluxPointSpillFile spillFile = this.spillFile;
+            if (!failed && spillFile != null && !spillFile.isEmpty()) {
+                replay(spillFile);
+            }
+
+            List<InfluxPoint> overflow = new ArrayList<>();
+            synchronized (points) {
+                while (points.size() > retryBufferLimit) {
+                    overflow.add(points.poll());
+                }
+            }
+            if (!overflow.isEmpty()) {
+                spill(overflow);
+            }
+        }
+    }
+
+    private boolean write(List<InfluxPoint> batch) {
+        long start = System.currentTimeMillis();
+        try {
+            writer.write(batch);
+        } catch (IOException | RuntimeException e) {
+            failedWrites.incrementAndGet();
+            logger.warn("Writing {} points failed, {} points are buffered: {}", batch.size(), getBufferedPoints(),
+                    e.getMessage());
+            return false;
+        }
+        long time = System.currentTimeMillis() - start;
+        writes.incrementAndGet();
+        writtenPoints.addAndGet(batch.size());
+        writeTimeTotal.addAndGet(time);
+        writeTimeMax.accumulateAndGet(time, Math::max);
+        lastWriteTime = time;
+        logger.debug("Wrote {} points in {} ms, {} points are buffered", batch.size(), time, getBufferedPoints());
+        return true;
+    }
+
+    private void replay(InfluxPointSpillFile spillFile) {
+        try {
+            long replayed = spillFile.replay(batch -> {
+                if (!write(batch)) {
+                    throw new IOException("Writing spilled points failed");
+                }
+            }, batchSize);
+            logger.info("Wrote {} points from spill file {}", replayed, spillFile.getPath());
+        } catch (IOException e) {
+            logger.warn("Failed to read spill file {}: {}", spillFile.getPath(), e.getMessage());
+        }
+    }
+
+    private void spill(List<InfluxPoint> overflow) {
+        InfluxPointSpillFile spillFile = this.spillFile;
+        if (spillFile == null) {
+            droppedPoints.addAndGet(overflow.size());
+            logger.warn("Dropped {} points that could not be written", overflow.size());
+            return;
+        }
+        try {
+            spillFile.append(overflow);
+            spilledPoints.addAndGet(overflow.size());
+            logger.debug("Moved {} points to spill file {}", overflow.size(), spillFile.getPath());
+        } catch (IOException e) {
+            droppedPoints.addAndGet(overflow.size());
+            logger.warn("Dropped {} points that could not be written to spill file {}: {}", overflow.size(),
+                    spillFile.getPath(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of points waiting in memory to be written (the backlog)
+     */
+    public int getBufferedPoints() {
+        synchronized (points) {
+            return points.size();
+        }
+    }
+
+    /**
+     * @return the number of points written
+     */
+    public long getWrittenPoints() {
+        return writtenPoints.get();
+    }
+
+    /**
+     * @return the number of points that were dropped because the buffer was full
+     */
+    public long getDroppedPoints() {
+        return droppedPoints.get();
+    }
+
+    /**
+     * @return the number of points moved to the spill file
+     */
+    public long getSpilledPoints() {
+        return spilledPoints.get();
+    }
+
+    /**
+     * @return the number of batches that failed to be written
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * @return the duration of the last successful write in milliseconds
+     */
+    public long getLastWriteTime() {
+        return lastWriteTime;
+    }
+
+    /**
+     * @return the average duration of a successful write in milliseconds
+     */
+    public double getAverageWriteTime() {
+        long count = writes.get();
+        return count == 0 ? 0 : (double) writeTimeTotal.get() / count;
+    }
+
+    /**
+     * @return the longest duration of a successful write in milliseconds
+     */
+    public long getMaxWriteTime() {
+        return writeTimeMax.get();
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteBuffer.BatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File to keep points that could not be written to the database, e.g. during a longer outage of the server,
+ * until the database can be written again.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxPointSpillFile {
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_DECIMAL = 6;
+    // upper bound of a stored string, protects against allocating huge arrays for a corrupt length
+    static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxPointSpillFile.class);
+
+    private final Path path;
+    private final Path replayPath;
+    private final Path corruptPath;
+
+    public InfluxPointSpillFile(Path path) {
+        this.path = path;
+        this.replayPath = path.resolveSibling(path.getFileName() + ".replay");
+        this.corruptPath = path.resolveSibling(path.getFileName() + ".corrupt");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized boolean isEmpty() {
+        try {
+            return !Files.exists(replayPath) && (!Files.exists(path) || Files.size(path) == 0);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Appends the points to the file.
+     */
+    public synchronized void append(Collection<InfluxPoint> points) throws IOException {
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            for (InfluxPoint point : points) {
+                write(out, point);
+            }
+        }
+    }
+
+    /**
+     * Writes the points of the file in batches. Points of batches that fail are kept in the file.
+     * If a point cannot be read, the remainder of the file starting with that point is moved to a '.corrupt' file
+     * next to the spill file, so that it doesn't block replaying points that are spilled later.
+     *
+     * @return the number of points written
+     */
+    public synchronized long replay(BatchWriter writer, int batchSize) throws IOException {
+        if (!Files.exists(replayPath)) {
+            if (!Files.exists(path)) {
+                return 0;
+            }
+            Files.move(path, replayPath, StandardCopyOption.REPLACE_EXISTING);
+        } // else: the previous replay was interrupted, its points might be written again which doesn't harm
+
+        long written = 0;
+        long corruptOffset = -1;
+        try (PositionInputStream position = new PositionInputStream(
+                new BufferedInputStream(Files.newInputStream(replayPath)));
+                DataInputStream in = new DataInputStream(position)) {
+            List<InfluxPoint> batch = new ArrayList<>(batchSize);
+            boolean failed = false;
+            boolean end = false;
+            while (!end) {
+                long offset = position.getPosition();
+                InfluxPoint point;
+                try {
+                    point = read(in);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Spill file {} is corrupt at offset {}: {}", path, offset, e.getMessage());
+                    corruptOffset = offset;
+                    point = null;
+                }
+                end = point == null;
+                if (point != null) {
+                    batch.add(point);
+                }
+                if (batch.size() == batchSize || (end && !batch.isEmpty())) {
+                    // once a batch failed, the remaining points are kept without trying to write them
+                    if (failed) {
+                        append(batch);
+                    } else if (write(writer, batch)) {
+                        written += batch.size();
+                    } else {
+                        failed = true;
+                    }
+                    batch.clear();
+                }
+            }
+        }
+        if (corruptOffset >= 0) {
+            keepCorrupt(corruptOffset);
+        }
+        Files.delete(replayPath);
+        return written;
+    }
+
+    /**
+     * Appends the remainder of the replayed file, starting at the given offset, to the '.corrupt' file.
+     */
+    private void keepCorrupt(long offset) throws IOException {
+        try (FileChannel source = FileChannel.open(replayPath, StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(corruptPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = source.size();
+            long copied = offset;
+            while (copied < size) {
+                copied += source.transferTo(copied, size - copied, target);
+            }
+        }
+        logger.warn("Moved the unreadable part of spill file {} to {}", path, corruptPath);
+    }
+
+    /**
+     * Writes a batch of replayed points, or appends them to the file again if this fails.
+     *
+     * @return whether the points were written
+     */
+    private boolean write(BatchWriter writer, List<InfluxPoint> batch) throws IOException {
+        try {
+            writer.write(batch);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            append(batch);
+            return false;
+        }
+    }
+
+    private static void write(DataOutputStream out, InfluxPoint point) throws IOException {
+        writeString(out, point.getMeasurementName());
+        out.writeLong(point.getTime().toEpochMilli());
+        Object value = point.getValue();
+        if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Number) {
+            out.writeByte(TYPE_DECIMAL);
+            writeString(out, value.toString());
+        } else {
+            out.writeByte(TYPE_NULL);
+        }
+        Map<String, String> tags = point.getTags();
+        out.writeInt(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeString(out, tag.getKey());
+            writeString(out, tag.getValue());
+        }
+    }
+
+    /**
+     * @return the next point, or null at the end of the file (including a point that was only written partially)
+     */
+    private static @Nullable InfluxPoint read(DataInputStream in) throws IOException {
+        try {
+            InfluxPoint.Builder builder = InfluxPoint.newBuilder(readString(in))
+                    .withTime(Instant.ofEpochMilli(in.readLong()));
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    builder.withValue(readString(in));
+                    break;
+                case TYPE_BOOLEAN:
+                    builder.withValue(in.readBoolean());
+                    break;
+                case TYPE_INTEGER:
+                    builder.withValue(in.readInt());
+                    break;
+                case TYPE_LONG:
+                    builder.withValue(in.readLong());
+                    break;
+                case TYPE_DOUBLE:
+                    builder.withValue(in.readDouble());
+                    break;
+                case TYPE_DECIMAL:
+                    builder.withValue(new BigDecimal(readString(in)));
+                    break;
+                case TYPE_NULL:
+                    break;
+                default:
+                    throw new IOException("Unknown value type " + type);
+            }
+            int tags = in.readInt();
+            for (int i = 0; i < tags; i++) {
+                builder.withTag(readString(in), readString(in));
+            }
+            return builder.build();
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keeps track of the number of bytes read, to know where a record starts.
+     */
+    private static class PositionInputStream extends FilterInputStream {
+        private long position;
+
+        PositionInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN_VALUE_NAME_V1;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -26,13 +27,16 @@ import java.util.concurrent.TimeUnit;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
 import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteBuffer;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
@@ -51,6 +55,8 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     private InfluxDBConfiguration configuration;
     @Nullable
     private InfluxDB client;
+    @Nullable
+    private InfluxDBWriteBuffer writeBuffer;
 
     public InfluxDB1RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -67,13 +73,20 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
         this.client = createdClient;
+        InfluxDBWriteBuffer createdWriteBuffer = new InfluxDBWriteBuffer(configuration, this::writeBatch);
+        createdWriteBuffer.start();
+        this.writeBuffer = createdWriteBuffer;
         return checkConnectionStatus();
     }
 
     @Override
     public void disconnect() {
+        final InfluxDBWriteBuffer currentWriteBuffer = writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.close();
+        }
+        this.writeBuffer = null;
         this.client = null;
     }
 
@@ -111,15 +124,36 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
 
     @Override
     public void write(InfluxPoint point) {
-        final InfluxDB currentClient = this.client;
-        if (currentClient != null) {
-            Point clientPoint = convertPointToClientFormat(point);
-            currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
+        final InfluxDBWriteBuffer currentWriteBuffer = writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.add(point);
         } else {
             logger.warn("Write point {} ignored due to client isn't connected", point);
         }
     }
 
+    @Override
+    public @Nullable InfluxDBWriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    private void writeBatch(List<InfluxPoint> points) throws IOException {
+        final InfluxDB currentClient = this.client;
+        if (currentClient == null) {
+            throw new IOException("client isn't connected");
+        }
+        BatchPoints.Builder batchPoints = BatchPoints.database(configuration.getDatabaseName())
+                .retentionPolicy(configuration.getRetentionPolicy());
+        for (InfluxPoint point : points) {
+            batchPoints.point(convertPointToClientFormat(point));
+        }
+        try {
+            currentClient.write(batchPoints.build());
+        } catch (InfluxDBException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point.Builder clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime().toEpochMilli(),
                 TimeUnit.MILLISECONDS);
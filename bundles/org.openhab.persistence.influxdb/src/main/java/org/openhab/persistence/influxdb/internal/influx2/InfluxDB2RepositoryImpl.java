@@ -14,6 +14,7 @@ package org.openhab.persistence.influxdb.internal.influx2;
 
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -27,6 +28,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteBuffer;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
@@ -37,10 +39,11 @@ import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+import com.influxdb.exceptions.InfluxException;
 import com.influxdb.query.FluxTable;
 
 /**
@@ -57,7 +60,9 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     @Nullable
     private QueryApi queryAPI;
     @Nullable
-    private WriteApi writeAPI;
+    private WriteApiBlocking writeAPI;
+    @Nullable
+    private InfluxDBWriteBuffer writeBuffer;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -94,7 +99,11 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        // batches are collected and retried by the write buffer, each batch is sent as a single blocking request
+        writeAPI = createdClient.getWriteApiBlocking();
+        InfluxDBWriteBuffer createdWriteBuffer = new InfluxDBWriteBuffer(configuration, this::writeBatch);
+        createdWriteBuffer.start();
+        writeBuffer = createdWriteBuffer;
         return checkConnectionStatus();
     }
 
@@ -103,6 +112,11 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
      */
     @Override
     public void disconnect() {
+        final InfluxDBWriteBuffer currentWriteBuffer = writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.close();
+        }
+        this.writeBuffer = null;
         final InfluxDBClient currentClient = this.client;
         if (currentClient != null) {
             currentClient.close();
@@ -140,14 +154,35 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
      */
     @Override
     public void write(InfluxPoint point) {
-        final WriteApi currentWriteAPI = writeAPI;
-        if (currentWriteAPI != null) {
-            currentWriteAPI.writePoint(convertPointToClientFormat(point));
+        final InfluxDBWriteBuffer currentWriteBuffer = writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.add(point);
         } else {
             logger.warn("Write point {} ignored due to writeAPI isn't present", point);
         }
     }
 
+    @Override
+    public @Nullable InfluxDBWriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    /**
+     * Sends a batch of points and waits for the response of the database
+     */
+    private void writeBatch(List<InfluxPoint> points) throws IOException {
+        final WriteApiBlocking currentWriteAPI = writeAPI;
+        if (currentWriteAPI == null) {
+            throw new IOException("writeAPI isn't present");
+        }
+        try {
+            currentWriteAPI
+                    .writePoints(points.stream().map(this::convertPointToClientFormat).collect(Collectors.toList()));
+        } catch (InfluxException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime(), WritePrecision.MS);
         setPointValue(point.getValue(), clientPoint);
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBWriteBufferTest {
+
+    private final List<InfluxPoint> written = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private void write(List<InfluxPoint> points) throws IOException {
+        if (failing.get()) {
+            throw new IOException("database down");
+        }
+        written.addAll(points);
+    }
+
+    private InfluxDBWriteBuffer createBuffer(int batchSize, String spillFile) {
+        Map<String, Object> config = ConfigurationTestHelper.createValidConfigurationParameters();
+        config.put(InfluxDBConfiguration.BATCH_SIZE_PARAM, String.valueOf(batchSize));
+        config.put(InfluxDBConfiguration.RETRY_BUFFER_LIMIT_PARAM, String.valueOf(batchSize));
+        config.put(InfluxDBConfiguration.FLUSH_INTERVAL_PARAM, "600000");
+        config.put(InfluxDBConfiguration.SPILL_FILE_PARAM, spillFile);
+        return new InfluxDBWriteBuffer(new InfluxDBConfiguration(config), this::write);
+    }
+
+    private static InfluxPoint point(int i) {
+        return InfluxPoint.newBuilder("item" + i).withTime(Instant.ofEpochMilli(i)).withValue(new BigDecimal(i))
+                .withTag(InfluxDBConstants.TAG_ITEM_NAME, "item" + i).build();
+    }
+
+    @Test
+    public void pointsAreWrittenInBatches() {
+        InfluxDBWriteBuffer instance = createBuffer(10, "");
+        for (int i = 0; i < 25; i++) {
+            instance.add(point(i));
+        }
+        instance.flush();
+
+        assertThat(written, hasSize(25));
+        assertThat(instance.getWrittenPoints(), is(25L));
+        assertThat(instance.getBufferedPoints(), is(0));
+    }
+
+    @Test
+    public void failedPointsAreKeptUpToTheLimit() {
+        InfluxDBWriteBuffer instance = createBuffer(10, "");
+        failing.set(true);
+        for (int i = 0; i < 15; i++) {
+            instance.add(point(i));
+        }
+        instance.flush();
+
+        assertThat(written, is(empty()));
+        assertThat(instance.getBufferedPoints(), is(10));
+        assertThat(instance.getDroppedPoints(), is(5L));
+
+        failing.set(false);
+        instance.flush();
+
+        assertThat(written, hasSize(10));
+        assertThat(instance.getBufferedPoints(), is(0));
+    }
+
+    @Test
+    public void overflowIsSpilledAndWrittenLater(@TempDir Path tempDir) {
+        InfluxDBWriteBuffer instance = createBuffer(10, tempDir.resolve("spill").toString());
+        failing.set(true);
+        for (int i = 0; i < 15; i++) {
+            instance.add(point(i));
+        }
+        instance.flush();
+
+        assertThat(written, is(empty()));
+        assertThat(instance.getBufferedPoints(), is(10));
+        assertThat(instance.getSpilledPoints(), is(5L));
+
+        failing.set(false);
+        instance.flush();
+
+        assertThat(written, hasSize(15));
+        assertThat(written.get(14).getValue(), is(new BigDecimal(4)));
+        assertThat(written.get(14).getTags(), hasEntry(InfluxDBConstants.TAG_ITEM_NAME, "item4"));
+        assertThat(instance.getBufferedPoints(), is(0));
+        assertThat(instance.getDroppedPoints(), is(0L));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxPointSpillFileTest {
+
+    private final List<InfluxPoint> written = new ArrayList<>();
+
+    private static InfluxPoint point(int i) {
+        return InfluxPoint.newBuilder("item" + i).withTime(Instant.ofEpochMilli(i)).withValue(new BigDecimal(i))
+                .withTag(InfluxDBConstants.TAG_ITEM_NAME, "item" + i).build();
+    }
+
+    private static List<InfluxPoint> points(int from, int to) {
+        List<InfluxPoint> points = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            points.add(point(i));
+        }
+        return points;
+    }
+
+    private static void appendCorruptRecord(Path path, int stringLength) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND))) {
+            out.writeInt(stringLength);
+            out.writeBytes("garbage");
+        }
+    }
+
+    @Test
+    public void pointsAreReplayedInBatches(@TempDir Path tempDir) throws IOException {
+        InfluxPointSpillFile instance = new InfluxPointSpillFile(tempDir.resolve("spill"));
+        instance.append(points(0, 5));
+        List<Integer> batchSizes = new ArrayList<>();
+
+        long replayed = instance.replay(batch -> {
+            batchSizes.add(batch.size());
+            written.addAll(batch);
+        }, 2);
+
+        assertThat(replayed, is(5L));
+        assertThat(batchSizes, contains(2, 2, 1));
+        assertThat(written.get(4).getValue(), is(new BigDecimal(4)));
+        assertThat(written.get(4).getTags(), hasEntry(InfluxDBConstants.TAG_ITEM_NAME, "item4"));
+        assertThat(instance.isEmpty(), is(true));
+    }
+
+    @Test
+    public void failedBatchesAreKept(@TempDir Path tempDir) throws IOException {
+        InfluxPointSpillFile instance = new InfluxPointSpillFile(tempDir.resolve("spill"));
+        instance.append(points(0, 5));
+
+        long replayed = instance.replay(batch -> {
+            throw new IOException("database down");
+        }, 2);
+
+        assertThat(replayed, is(0L));
+        assertThat(instance.isEmpty(), is(false));
+        assertThat(instance.replay(written::addAll, 2), is(5L));
+        assertThat(instance.isEmpty(), is(true));
+    }
+
+    @Test
+    public void corruptRemainderIsMovedAside(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("spill");
+        InfluxPointSpillFile instance = new InfluxPointSpillFile(path);
+        instance.append(points(0, 3));
+        long validSize = Files.size(path);
+        appendCorruptRecord(path, InfluxPointSpillFile.MAX_STRING_LENGTH + 1);
+        long corruptSize = Files.size(path) - validSize;
+
+        long replayed = instance.replay(written::addAll, 2);
+
+        assertThat(replayed, is(3L));
+        assertThat(written, hasSize(3));
+        assertThat(instance.isEmpty(), is(true));
+        Path corruptPath = tempDir.resolve("spill.corrupt");
+        assertThat(Files.size(corruptPath), is(corruptSize));
+
+        // points spilled later are not blocked by the corrupt data
+        instance.append(points(3, 5));
+        assertThat(instance.replay(written::addAll, 2), is(2L));
+        assertThat(written, hasSize(5));
+    }
+
+    @Test
+    public void negativeStringLengthIsCorrupt(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("spill");
+        InfluxPointSpillFile instance = new InfluxPointSpillFile(path);
+        instance.append(points(0, 1));
+        appendCorruptRecord(path, -1);
+
+        assertThat(instance.replay(written::addAll, 2), is(1L));
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(Files.exists(tempDir.resolve("spill.corrupt")), is(true));
+    }
+
+    @Test
+    public void partiallyWrittenPointIsIgnored(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("spill");
+        InfluxPointSpillFile instance = new InfluxPointSpillFile(path);
+        instance.append(points(0, 2));
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND))) {
+            out.writeInt(4);
+            out.writeBytes("it");
+        }
+
+        assertThat(instance.replay(written::addAll, 2), is(2L));
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(Files.exists(tempDir.resolve("spill.corrupt")), is(false));
+    }
+}
@@ -13,6 +13,9 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -22,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
@@ -56,6 +60,7 @@ import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
 import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
 import org.openhab.persistence.jdbc.utils.DbMetaData;
+import org.openhab.persistence.jdbc.utils.PreparedStatementCache;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +90,12 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    protected String sqlTimeBucket;
+
+    // compiled statements per item table, see getInsertItemValueSql(ItemVO)
+    private final Map<String, String> sqlInsertItemValueCache = new ConcurrentHashMap<>();
+    private final Map<String, String> sqlInsertItemValuesCache = new ConcurrentHashMap<>();
+    private @Nullable PreparedStatementCache statementCache;
 
     /********
      * INIT *
@@ -144,6 +155,7 @@ public class JdbcBaseDAO {
         sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='#jdbcUriDatabaseName#' AND NOT table_name='#itemsManageTable#'";
         sqlCreateItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time))";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
+        sqlTimeBucket = "FLOOR(TIMESTAMPDIFF(SECOND, '#beginTime#', time) / #bucketSeconds#)";
     }
 
     /**
@@ -327,12 +339,43 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
+        String sql = getInsertItemValueSql(storedVO);
+        Object[] params = storeItemValueParams(storedVO);
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
-        Yank.execute(sql, params);
+        PreparedStatementCache cache = statementCache;
+        if (cache == null) {
+            Yank.execute(sql, params);
+        } else {
+            executeCached(cache, sql, new Object[][] { params });
+        }
+    }
+
+    /**
+     * Stores a batch of already converted values (see {@link #prepareItemValue(Item, ItemVO)}) of one item table
+     * using a single JDBC batch. As values are written some time after they have been received, the time of each
+     * value is bound as parameter instead of using the databases current time ('tablePrimaryValue').
+     *
+     * @return true if the values were stored, false if the database reported an error
+     */
+    public boolean doStoreItemValues(String tableName, List<ItemVO> vol) {
+        if (vol.isEmpty()) {
+            return true;
+        }
+        ItemVO first = vol.get(0);
+        String sql = sqlInsertItemValuesCache.computeIfAbsent(tableName + "#" + first.getDbType(),
+                k -> storeItemValuesProvider(tableName, first));
+        Object[][] params = new Object[vol.size()][];
+        for (int i = 0; i < vol.size(); i++) {
+            params[i] = storeItemValuesParams(vol.get(i));
+        }
+        logger.debug("JDBC::doStoreItemValues sql={} count={}", sql, vol.size());
+        PreparedStatementCache cache = statementCache;
+        if (cache == null) {
+            // Yank logs the error and returns null
+            return Yank.executeBatch(sql, params) != null;
+        } else {
+            return executeCached(cache, sql, params);
+        }
     }
 
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
@@ -347,6 +390,23 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Queries the values of a numeric item in buckets of 'bucketSeconds' starting at the begin date of the filter.
+     * Each bucket is reduced by the database to one value using 'aggregation' (AVG, MIN, MAX or LAST).
+     */
+    public List<HistoricItem> doGetHistItemDownsampledQuery(Item item, FilterCriteria filter, String table,
+            ZoneId timeZone, long bucketSeconds, String aggregation) {
+        String sql = histItemDownsampledQueryProvider(filter, table, timeZone, bucketSeconds, aggregation);
+        logger.debug("JDBC::doGetHistItemDownsampledQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return m.stream().filter(o -> o[0] != null && o[1] != null)
+                .map(o -> new JdbcHistoricItem(itemName, getState(item, unit, downsampledValue(item, o[1])),
+                        objectAsDate(o[0])))
+                .collect(Collectors.<HistoricItem> toList());
+    }
+
     /*************
      * Providers *
      *************/
@@ -385,6 +445,52 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String insertItemValueProvider(ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" },
+                new String[] { vo.getTableName(), sqlTypes.get("tablePrimaryValue") });
+    }
+
+    protected Object[] storeItemValueParams(ItemVO vo) {
+        return new Object[] { vo.getValue(), vo.getValue() };
+    }
+
+    protected String storeItemValuesProvider(String tableName, ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { tableName, "?" });
+    }
+
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        return new Object[] { new Timestamp(vo.getTime().getTime()), vo.getValue(), vo.getValue() };
+    }
+
+    protected String histItemDownsampledQueryProvider(FilterCriteria filter, String table, ZoneId timeZone,
+            long bucketSeconds, String aggregation) {
+        String beginTime = JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone));
+        String filterString = " WHERE TIME>'" + beginTime + "'";
+        if (filter.getEndDate() != null) {
+            filterString += " AND TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
+                    + "'";
+        }
+        String bucket = StringUtilsExt.replaceArrayMerge(sqlTimeBucket,
+                new String[] { "#beginTime#", "#bucketSeconds#" },
+                new String[] { beginTime, String.valueOf(bucketSeconds) });
+        String queryString;
+        if ("LAST".equals(aggregation)) {
+            // SELECT time, value FROM item0001 WHERE time IN (SELECT MAX(time) FROM item0001 WHERE ... GROUP BY ...)
+            queryString = "SELECT time, value FROM " + table + " WHERE time IN (SELECT MAX(time) FROM " + table
+                    + filterString + " GROUP BY " + bucket + ")";
+            queryString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
+        } else {
+            // SELECT MIN(time), AVG(value) FROM item0001 WHERE ... GROUP BY ... ORDER BY 1 ASC
+            queryString = "SELECT MIN(time), " + aggregation + "(value) FROM " + table + filterString + " GROUP BY "
+                    + bucket;
+            queryString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -487,6 +593,66 @@ public class JdbcBaseDAO {
     /*****************
      * H E L P E R S *
      *****************/
+
+    /**
+     * Returns the insert statement for the item table of the given value. The '#placeholder#' template is resolved
+     * only once per item table, later stores reuse the compiled statement.
+     */
+    protected String getInsertItemValueSql(ItemVO vo) {
+        return sqlInsertItemValueCache.computeIfAbsent(vo.getTableName() + "#" + vo.getDbType(),
+                k -> insertItemValueProvider(vo));
+    }
+
+    /**
+     * Executes the statement once per parameter row within one transaction, using a prepared statement from the
+     * per-connection statement cache.
+     *
+     * @return true if the statement was executed, false if the database reported an error
+     */
+    private boolean executeCached(PreparedStatementCache cache, String sql, Object[][] params) {
+        try (Connection con = Yank.getDefaultConnectionPool().getConnection()) {
+            boolean autoCommit = con.getAutoCommit();
+            if (autoCommit && params.length > 1) {
+                con.setAutoCommit(false);
+            }
+            try {
+                PreparedStatement ps = cache.prepare(con.unwrap(Connection.class), sql);
+                if (params.length == 1) {
+                    setParams(ps, params[0]);
+                    ps.executeUpdate();
+                } else {
+                    for (Object[] row : params) {
+                        setParams(ps, row);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                if (!con.getAutoCommit()) {
+                    con.commit();
+                }
+                return true;
+            } catch (SQLException e) {
+                if (!con.getAutoCommit()) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit != con.getAutoCommit()) {
+                    con.setAutoCommit(autoCommit);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("JDBC::executeCached: Error executing sql '{}': {}", sql, e.getMessage());
+            return false;
+        }
+    }
+
+    private void setParams(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
     protected State getState(Item item, @Nullable Unit<? extends Quantity<?>> unit, Object v) {
         logger.debug(
                 "JDBC::ItemResultHandler::handleResult getState value = '{}', unit = '{}', getClass = '{}', clazz = '{}'",
@@ -525,6 +691,30 @@ public class JdbcBaseDAO {
         }
     }
 
+    /**
+     * Aggregated values are returned by the database with a type depending on the aggregate function, they are
+     * converted to the type {@link #getState(Item, Unit, Object)} expects for the item.
+     */
+    protected Object downsampledValue(Item item, Object v) {
+        if (!(v instanceof Number)) {
+            return v;
+        }
+        Number n = (Number) v;
+        if (item instanceof NumberItem) {
+            String it = getSqlTypes().get("NUMBERITEM").toUpperCase();
+            if (it.contains("DOUBLE")) {
+                return n.doubleValue();
+            } else if (it.contains("DECIMAL") || it.contains("NUMERIC")) {
+                return n instanceof BigDecimal ? n : BigDecimal.valueOf(n.doubleValue());
+            } else if (it.contains("INT")) {
+                return (int) Math.round(n.doubleValue());
+            }
+            return n.toString();
+        }
+        // DimmerItem, RollershutterItem
+        return (int) Math.round(n.doubleValue());
+    }
+
     protected ZonedDateTime objectAsDate(Object v) {
         if (v instanceof java.lang.String) {
             return ZonedDateTime.ofInstant(Timestamp.valueOf(v.toString()).toInstant(), ZoneId.systemDefault());
@@ -585,6 +775,38 @@ public class JdbcBaseDAO {
         return sqlTypes;
     }
 
+    /**
+     * Converts the current state of the item into a value object, which can be stored later on by
+     * {@link #doStoreItemValues(String, List)}.
+     */
+    public ItemVO prepareItemValue(Item item, ItemVO vo) {
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        storedVO.setTime(new java.util.Date());
+        return storedVO;
+    }
+
+    /**
+     * Enables a per-connection cache of prepared statements for storing values.
+     *
+     * @param size maximum number of cached statements per connection, 0 to let Yank prepare each statement
+     */
+    public void setStatementCacheSize(int size) {
+        clearSqlCache();
+        statementCache = size > 0 ? new PreparedStatementCache(size) : null;
+    }
+
+    /**
+     * Forgets all compiled statements, e.g. after the 'sqlTypes' have changed.
+     */
+    public void clearSqlCache() {
+        sqlInsertItemValueCache.clear();
+        sqlInsertItemValuesCache.clear();
+        PreparedStatementCache cache = statementCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     public String getDataType(Item item) {
         return sqlTypes.get(getItemType(item));
     }
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for item values. Values are collected and written per item table with one JDBC batch,
+ * either when 'batchSize' values are pending or after 'batchFlushInterval' milliseconds.
+ *
+ * The values of a table that cannot be written are queued again, as far as there is space in the queue, and are
+ * dropped after {@link #MAX_ATTEMPTS} failed attempts in a row.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JdbcBatchWriter {
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Receives the outcome of every batch, to count errors like the synchronous store does.
+     */
+    public interface StoreListener {
+        void stored();
+
+        void failed();
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcBatchWriter.class);
+
+    private final JdbcBaseDAO dao;
+    private final ScheduledExecutorService scheduler;
+    private final StoreListener listener;
+    private final BlockingQueue<ItemVO> queue;
+    private final int batchSize;
+    private final int flushInterval;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicBoolean dropping = new AtomicBoolean();
+    private final AtomicLong droppedValues = new AtomicLong();
+    private final Object flushLock = new Object();
+    // failed attempts in a row per table, guarded by flushLock
+    private final Map<String, Integer> failedAttempts = new HashMap<>();
+    private ScheduledFuture<?> flushJob = null;
+
+    public JdbcBatchWriter(JdbcBaseDAO dao, ScheduledExecutorService scheduler, StoreListener listener, int batchSize,
+            int flushInterval, int queueSize) {
+        this.dao = dao;
+        this.scheduler = scheduler;
+        this.listener = listener;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new LinkedBlockingQueue<>(Math.max(queueSize, batchSize));
+    }
+
+    public synchronized void start() {
+        if (flushJob == null) {
+            logger.debug("JDBC::JdbcBatchWriter: start with batchSize={} flushInterval={} ms", batchSize,
+                    flushInterval);
+            flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes all values still pending.
+     */
+    public synchronized void stop() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        logger.debug("JDBC::JdbcBatchWriter: stopped");
+    }
+
+    /**
+     * Queues a value for writing. The calling thread never waits: if the queue is full, a flush is triggered and
+     * the value is dropped.
+     */
+    public void add(ItemVO vo) {
+        if (!queue.offer(vo)) {
+            droppedValues.incrementAndGet();
+            if (dropping.compareAndSet(false, true)) {
+                logger.warn("JDBC::JdbcBatchWriter: queue is full, dropping values until it is written ({} dropped)",
+                        droppedValues.get());
+            }
+            requestFlush();
+            return;
+        }
+        if (queue.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Wakes the flush on the scheduler, unless a flush is already pending.
+     */
+    private void requestFlush() {
+        if (flushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    public void flush() {
+        flushPending.set(false);
+        synchronized (flushLock) {
+            List<ItemVO> pending = new ArrayList<>(queue.size());
+            queue.drainTo(pending);
+            dropping.set(false);
+            store(pending);
+        }
+    }
+
+    /**
+     * Writes the values of one item table only, e.g. before the table is queried.
+     */
+    public void flush(String tableName) {
+        synchronized (flushLock) {
+            List<ItemVO> pending = new ArrayList<>();
+            queue.removeIf(vo -> tableName.equals(vo.getTableName()) && pending.add(vo));
+            store(pending);
+        }
+    }
+
+    private void store(List<ItemVO> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // group per item table, keeping only the last value per table and timestamp
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : pending) {
+            tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+        }
+        long timerStart = System.currentTimeMillis();
+        for (Map.Entry<String, Map<Long, ItemVO>> table : tables.entrySet()) {
+            List<ItemVO> values = new ArrayList<>(table.getValue().values());
+            boolean stored;
+            try {
+                stored = dao.doStoreItemValues(table.getKey(), values);
+            } catch (RuntimeException e) {
+                logger.warn("JDBC::JdbcBatchWriter: Unable to store {} values into table '{}': {}", values.size(),
+                        table.getKey(), e.getMessage());
+                stored = false;
+            }
+            if (stored) {
+                failedAttempts.remove(table.getKey());
+                listener.stored();
+            } else {
+                retry(table.getKey(), values);
+                listener.failed();
+            }
+        }
+        logger.debug("JDBC::JdbcBatchWriter: stored {} values into {} tables in {} ms, {} values dropped so far",
+                pending.size(), tables.size(), System.currentTimeMillis() - timerStart, droppedValues.get());
+    }
+
+    /**
+     * Queues the values of a failed batch again, unless they already failed too often.
+     */
+    private void retry(String tableName, List<ItemVO> values) {
+        int attempts = failedAttempts.merge(tableName, 1, Integer::sum);
+        int requeued = 0;
+        if (attempts < MAX_ATTEMPTS) {
+            for (ItemVO vo : values) {
+                if (!queue.offer(vo)) {
+                    break;
+                }
+                requeued++;
+            }
+        } else {
+            failedAttempts.remove(tableName);
+        }
+        int dropped = values.size() - requeued;
+        droppedValues.addAndGet(dropped);
+        logger.warn("JDBC::JdbcBatchWriter: storing {} values into table '{}' failed (attempt {}), {} queued again",
+                values.size(), tableName, attempts, requeued);
+        if (dropped > 0) {
+            logger.warn("JDBC::JdbcBatchWriter: dropped {} values of table '{}'", dropped, tableName);
+        }
+    }
+
+    /**
+     * @return the number of values waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of values dropped because the queue was full or writing failed repeatedly
+     */
+    public long getDroppedValues() {
+        return droppedValues.get();
+    }
+}
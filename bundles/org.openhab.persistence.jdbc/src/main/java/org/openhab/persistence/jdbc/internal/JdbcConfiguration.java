@@ -37,6 +37,7 @@ public class JdbcConfiguration {
 
     private static final Pattern EXTRACT_CONFIG_PATTERN = Pattern.compile("^(.*?)\\.([0-9.a-zA-Z]+)$");
     private static final String DB_DAO_PACKAGE = "org.openhab.persistence.jdbc.db.Jdbc";
+    private static final Set<String> AGGREGATIONS = Set.of("AVG", "MIN", "MAX", "LAST");
 
     private Map<Object, Object> configuration;
 
@@ -60,6 +61,15 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // server side downsampling of queries, 0 = return all values
+    private int queryMaxPoints = 0;
+    private String queryAggregation = "AVG";
+
+    // write-behind queue, 0 = store synchronously
+    private int batchSize = 0;
+    private int batchFlushInterval = 1000;
+    private int batchQueueSize = 10000;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -173,6 +183,48 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String qm = (String) configuration.get("queryMaxPoints");
+        if (qm != null && !qm.isBlank() && isNumericPattern.matcher(qm).matches()) {
+            queryMaxPoints = Integer.parseInt(qm);
+            logger.debug("JDBC::updateConfig: queryMaxPoints={}", queryMaxPoints);
+        }
+
+        String qa = (String) configuration.get("queryAggregation");
+        if (qa != null && !qa.isBlank()) {
+            qa = qa.trim().toUpperCase();
+            if (AGGREGATIONS.contains(qa)) {
+                queryAggregation = qa;
+                logger.debug("JDBC::updateConfig: queryAggregation={}", queryAggregation);
+            } else {
+                logger.warn("JDBC::updateConfig: Unknown queryAggregation '{}', using '{}'. Valid values are {}", qa,
+                        queryAggregation, AGGREGATIONS);
+            }
+        }
+
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bf = (String) configuration.get("batchFlushInterval");
+        if (bf != null && !bf.isBlank() && isNumericPattern.matcher(bf).matches()) {
+            batchFlushInterval = Math.max(Integer.parseInt(bf), 10);
+            logger.debug("JDBC::updateConfig: batchFlushInterval={}", batchFlushInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Integer.parseInt(bq);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
+        String sc = (String) configuration.get("statementCacheSize");
+        if (sc != null && !sc.isBlank() && isNumericPattern.matcher(sc).matches()) {
+            dBDAO.setStatementCacheSize(Integer.parseInt(sc));
+            logger.debug("JDBC::updateConfig: statementCacheSize={}", sc);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -350,6 +402,26 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public int getQueryMaxPoints() {
+        return queryMaxPoints;
+    }
+
+    public String getQueryAggregation() {
+        return queryAggregation;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchFlushInterval() {
+        return batchFlushInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -373,6 +445,8 @@ public class JdbcConfiguration {
         dBDAO.initAfterFirstDbConnection();
         // Running once again to prior external configured SqlTypes!
         setSqlTypes();
+        // statements compiled so far may use outdated SqlTypes
+        dBDAO.clearSqlCache();
         this.dbConnected = dbConnected;
     }
 
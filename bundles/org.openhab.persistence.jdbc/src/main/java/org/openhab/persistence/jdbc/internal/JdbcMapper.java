@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +24,10 @@ import java.util.stream.Collectors;
 import org.knowm.yank.Yank;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.items.Item;
+import org.openhab.core.library.items.ColorItem;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -42,10 +48,11 @@ public class JdbcMapper {
     private final TimeZoneProvider timeZoneProvider;
 
     // Error counter - used to reconnect to database on error
-    protected int errCnt;
-    protected boolean initialized = false;
+    protected volatile int errCnt;
+    protected volatile boolean initialized = false;
     protected JdbcConfiguration conf = null;
     protected final Map<String, String> sqlTables = new HashMap<>();
+    protected JdbcBatchWriter batchWriter = null;
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -153,6 +160,13 @@ public class JdbcMapper {
             return item;
         }
         long timerStart = System.currentTimeMillis();
+        JdbcBatchWriter writer = batchWriter;
+        if (writer != null) {
+            // the state is converted now, the value itself is written by the write-behind queue
+            writer.add(conf.getDBDAO().prepareItemValue(item, new ItemVO(tableName, null)));
+            logTime("queueItemValue", timerStart, System.currentTimeMillis());
+            return item;
+        }
         conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
         logTime("storeItemValue", timerStart, System.currentTimeMillis());
         errCnt = 0;
@@ -166,8 +180,12 @@ public class JdbcMapper {
                 (filter != null), numberDecimalcount, table, item, item.getName());
         if (table != null) {
             long timerStart = System.currentTimeMillis();
-            List<HistoricItem> result = conf.getDBDAO().doGetHistItemFilterQuery(item, filter, numberDecimalcount,
-                    table, item.getName(), timeZoneProvider.getTimeZone());
+            long bucketSeconds = getBucketSeconds(filter, item);
+            List<HistoricItem> result = bucketSeconds > 1
+                    ? conf.getDBDAO().doGetHistItemDownsampledQuery(item, filter, table,
+                            timeZoneProvider.getTimeZone(), bucketSeconds, conf.getQueryAggregation())
+                    : conf.getDBDAO().doGetHistItemFilterQuery(item, filter, numberDecimalcount, table,
+                            item.getName(), timeZoneProvider.getTimeZone());
             logTime("getHistItemFilterQuery", timerStart, System.currentTimeMillis());
             errCnt = 0;
             return result;
@@ -177,6 +195,58 @@ public class JdbcMapper {
         return null;
     }
 
+    /**
+     * Feeds the results of the write-behind queue into the error counter. Once more than 'errReconnectThreshold'
+     * batches failed in a row, the connection pool is closed and the next store or query reconnects.
+     */
+    protected final JdbcBatchWriter.StoreListener batchStoreListener = new JdbcBatchWriter.StoreListener() {
+        @Override
+        public void stored() {
+            errCnt = 0;
+            if (!initialized && conf.isDbConnected()) {
+                initialized = true;
+            }
+        }
+
+        @Override
+        public void failed() {
+            errCnt++;
+            int threshold = conf.getErrReconnectThreshold();
+            if (threshold > 0 && errCnt > threshold && initialized) {
+                logger.warn("JDBC::batchStoreListener: {} batches failed, reconnecting to database", errCnt);
+                initialized = false;
+                closeConnection();
+            }
+        }
+    };
+
+    /**
+     * @return the number of values waiting in the write-behind queue, 0 if values are stored synchronously
+     */
+    public int getStoreQueueDepth() {
+        JdbcBatchWriter writer = batchWriter;
+        return writer == null ? 0 : writer.getQueueDepth();
+    }
+
+    /**
+     * Calculates the bucket size in seconds to downsample a query to at most 'queryMaxPoints' values.
+     * Only unpaged queries of numeric items with a begin date are downsampled.
+     *
+     * @return bucket size in seconds, 0 if the query is not downsampled
+     */
+    private long getBucketSeconds(FilterCriteria filter, Item item) {
+        int maxPoints = conf.getQueryMaxPoints();
+        ZonedDateTime begin = filter.getBeginDate();
+        if (maxPoints <= 0 || begin == null || filter.getPageSize() != Integer.MAX_VALUE
+                || !(item instanceof NumberItem || item instanceof RollershutterItem
+                        || (item instanceof DimmerItem && !(item instanceof ColorItem)))) {
+            return 0;
+        }
+        ZonedDateTime end = filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now();
+        long seconds = Duration.between(begin, end).getSeconds();
+        return (seconds + maxPoints - 1) / maxPoints;
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
@@ -198,6 +268,7 @@ public class JdbcMapper {
     protected void closeConnection() {
         logger.debug("JDBC::closeConnection");
         // Closes all open connection pools
+        conf.getDBDAO().clearSqlCache();
         Yank.releaseDefaultConnectionPool();
         conf.setDbConnected(false);
     }
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded LRU cache of prepared statements per physical database connection.
+ *
+ * The pool closes all statements created through its connection proxies when a connection is returned, so
+ * statements are prepared on the unwrapped driver connection and stay open until they are evicted or the
+ * physical connection is closed by the pool. This is a trade-off: the pool's statement tracking and leak detection
+ * do not see these statements, and the pool retires physical connections (e.g. after 'maxLifetime') without
+ * telling the cache. The statements of a retired connection are closed by the driver together with the
+ * connection; the cache forgets closed connections whenever it is used. Drivers with their own statement cache
+ * (e.g. 'cachePrepStmts' of MySQL and MariaDB) do not need this cache.
+ *
+ * A statement is only closed by the thread that currently holds its connection, so a statement in use is never
+ * closed by another thread.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class PreparedStatementCache {
+    private final Logger logger = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final int maxSize;
+    // all access is guarded by this map
+    private final Map<Connection, ConnectionCache> caches = new HashMap<>();
+    private long generation;
+
+    private static class ConnectionCache {
+        final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+        long generation;
+
+        ConnectionCache(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    public PreparedStatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a cached statement for the given physical connection and sql, preparing it if necessary.
+     * A connection is only used by one thread at a time, the returned statement must not be closed by the caller.
+     */
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        List<PreparedStatement> obsolete = new ArrayList<>();
+        try {
+            PreparedStatement ps;
+            synchronized (caches) {
+                purgeClosedConnections();
+                ConnectionCache cache = caches.computeIfAbsent(connection, c -> new ConnectionCache(generation));
+                if (cache.generation != generation) {
+                    // the cache was cleared while the statements were possibly in use
+                    obsolete.addAll(cache.statements.values());
+                    cache.statements.clear();
+                    cache.generation = generation;
+                }
+                ps = cache.statements.get(sql);
+            }
+            if (ps != null && !ps.isClosed()) {
+                return ps;
+            }
+            ps = connection.prepareStatement(sql);
+            synchronized (caches) {
+                ConnectionCache cache = caches.computeIfAbsent(connection, c -> new ConnectionCache(generation));
+                cache.statements.put(sql, ps);
+                if (cache.statements.size() > maxSize) {
+                    Iterator<PreparedStatement> eldest = cache.statements.values().iterator();
+                    obsolete.add(eldest.next());
+                    eldest.remove();
+                }
+            }
+            return ps;
+        } finally {
+            // closed by the thread holding the connection
+            obsolete.forEach(this::close);
+        }
+    }
+
+    /**
+     * Forgets all cached statements. Statements that may be in use by other threads are not closed here, but by
+     * the next use of their connection.
+     */
+    public void clear() {
+        synchronized (caches) {
+            generation++;
+        }
+    }
+
+    /**
+     * @return the number of physical connections with cached statements
+     */
+    int getConnectionCount() {
+        synchronized (caches) {
+            return caches.size();
+        }
+    }
+
+    private void purgeClosedConnections() {
+        Iterator<Connection> it = caches.keySet().iterator();
+        while (it.hasNext()) {
+            try {
+                if (it.next().isClosed()) {
+                    it.remove();
+                }
+            } catch (SQLException e) {
+                it.remove();
+            }
+        }
+    }
+
+    private void close(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            logger.debug("JDBC::PreparedStatementCache: closing statement failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+
+/**
+ * Runs the downsampled queries of the {@link JdbcH2DAO} against an in-memory H2 database.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcH2DAOTest {
+
+    private static final String TABLE = "item0001";
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final ZonedDateTime BEGIN = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZONE);
+    // 10 buckets of 10 seconds
+    private static final long BUCKET_SECONDS = 10;
+
+    private final JdbcH2DAO dao = new JdbcH2DAO();
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:downsample");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + TABLE + " (time TIMESTAMP NOT NULL, value DOUBLE, PRIMARY KEY(time))");
+        }
+        insert(1, 1);
+        // the last second of the first bucket
+        insert(9, 3);
+        // the first second of the second bucket
+        insert(10, 10);
+        // no values in the buckets in between
+        insert(55, 5);
+        // after the end date
+        insert(101, 100);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void valuesAreAveragedPerBucket() throws SQLException {
+        List<Object[]> rows = query("AVG", Ordering.ASCENDING);
+
+        assertThat(rows, hasSize(3));
+        assertRow(rows.get(0), 1, 2);
+        assertRow(rows.get(1), 10, 10);
+        assertRow(rows.get(2), 55, 5);
+    }
+
+    @Test
+    public void maximumIsReturnedPerBucketInDescendingOrder() throws SQLException {
+        List<Object[]> rows = query("MAX", Ordering.DESCENDING);
+
+        assertThat(rows, hasSize(3));
+        assertRow(rows.get(0), 55, 5);
+        assertRow(rows.get(1), 10, 10);
+        assertRow(rows.get(2), 1, 3);
+    }
+
+    @Test
+    public void lastValueOfEachBucketIsReturnedWithItsTime() throws SQLException {
+        List<Object[]> rows = query("LAST", Ordering.ASCENDING);
+
+        assertThat(rows, hasSize(3));
+        assertRow(rows.get(0), 9, 3);
+        assertRow(rows.get(1), 10, 10);
+        assertRow(rows.get(2), 55, 5);
+    }
+
+    private void insert(long offsetSeconds, double value) throws SQLException {
+        try (PreparedStatement statement = connection
+                .prepareStatement("INSERT INTO " + TABLE + " (time, value) VALUES (?, ?)")) {
+            statement.setTimestamp(1, Timestamp.from(BEGIN.plusSeconds(offsetSeconds).toInstant()));
+            statement.setDouble(2, value);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<Object[]> query(String aggregation, Ordering ordering) throws SQLException {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName("test");
+        filter.setBeginDate(BEGIN);
+        filter.setEndDate(BEGIN.plusSeconds(100));
+        filter.setOrdering(ordering);
+        String sql = dao.histItemDownsampledQueryProvider(filter, TABLE, ZONE, BUCKET_SECONDS, aggregation);
+
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                rows.add(new Object[] { resultSet.getTimestamp(1), resultSet.getDouble(2) });
+            }
+        }
+        return rows;
+    }
+
+    private static void assertRow(Object[] row, long offsetSeconds, double value) {
+        assertThat(((Timestamp) row[0]).toInstant(), is(BEGIN.plusSeconds(offsetSeconds).toInstant()));
+        assertThat((Double) row[1], is(closeTo(value, 0.0001)));
+    }
+}
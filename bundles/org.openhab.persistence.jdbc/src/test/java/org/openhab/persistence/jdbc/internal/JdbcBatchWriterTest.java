@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.internal.JdbcBatchWriter.StoreListener;
+import org.openhab.persistence.jdbc.model.ItemVO;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JdbcBatchWriterTest {
+
+    private static final String TABLE = "item0001";
+    private static final String OTHER_TABLE = "item0002";
+
+    private @Mock JdbcBaseDAO dao;
+    private @Mock ScheduledExecutorService scheduler;
+    private @Mock StoreListener listener;
+
+    private long time = 1000;
+
+    @Test
+    public void fullBatchWakesTheFlushOnce() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 2, 1000, 10);
+
+        writer.add(newItemVO(TABLE));
+        verify(scheduler, never()).execute(any());
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(TABLE));
+
+        verify(scheduler, times(1)).execute(any());
+        verifyNoInteractions(dao);
+        assertThat(writer.getQueueDepth(), is(3));
+    }
+
+    @Test
+    public void fullQueueDropsValueWithoutFlushingOnTheCallingThread() {
+        when(dao.doStoreItemValues(eq(TABLE), anyList())).thenReturn(true);
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 2, 50, 2);
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(TABLE));
+
+        // the scheduled flush does not run, so the queue stays full
+        writer.add(newItemVO(TABLE));
+
+        verifyNoInteractions(dao);
+        assertThat(writer.getQueueDepth(), is(2));
+        assertThat(writer.getDroppedValues(), is(1L));
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).execute(flush.capture());
+        flush.getValue().run();
+
+        verify(dao).doStoreItemValues(eq(TABLE), argThat(values -> values.size() == 2));
+        verify(listener).stored();
+        assertThat(writer.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void valuesAreNeverStoredOnTheCallingThread() {
+        ScheduledExecutorService realScheduler = Executors.newSingleThreadScheduledExecutor();
+        List<String> storingThreads = new ArrayList<>();
+        List<ItemVO> stored = new ArrayList<>();
+        doAnswer(invocation -> {
+            synchronized (stored) {
+                storingThreads.add(Thread.currentThread().getName());
+                stored.addAll(invocation.getArgument(1));
+            }
+            return true;
+        }).when(dao).doStoreItemValues(eq(TABLE), anyList());
+        try {
+            JdbcBatchWriter writer = new JdbcBatchWriter(dao, realScheduler, listener, 2, 10000, 2);
+            String callingThread = Thread.currentThread().getName();
+
+            for (int i = 0; i < 10; i++) {
+                writer.add(newItemVO(TABLE));
+            }
+            writer.stop();
+
+            synchronized (stored) {
+                // values that did not fit into the queue are dropped instead of blocking the calling thread
+                assertThat(stored.size() + writer.getDroppedValues(), is(10L));
+                // only the final flush of stop() runs on the calling thread
+                assertThat(storingThreads.subList(0, storingThreads.size() - 1), not(hasItem(callingThread)));
+            }
+        } finally {
+            realScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedBatchIsQueuedAgain() {
+        when(dao.doStoreItemValues(eq(TABLE), anyList())).thenReturn(false, true);
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 10, 1000, 10);
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(TABLE));
+
+        writer.flush();
+
+        verify(listener).failed();
+        assertThat(writer.getQueueDepth(), is(2));
+
+        writer.flush();
+
+        verify(dao, times(2)).doStoreItemValues(eq(TABLE), argThat(values -> values.size() == 2));
+        verify(listener).stored();
+        assertThat(writer.getQueueDepth(), is(0));
+        assertThat(writer.getDroppedValues(), is(0L));
+    }
+
+    @Test
+    public void exceptionCountsAsFailure() {
+        when(dao.doStoreItemValues(eq(TABLE), anyList())).thenThrow(new IllegalStateException("no connection"));
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 10, 1000, 10);
+        writer.add(newItemVO(TABLE));
+
+        writer.flush();
+
+        verify(listener).failed();
+        assertThat(writer.getQueueDepth(), is(1));
+    }
+
+    @Test
+    public void failedBatchIsDroppedAfterMaxAttempts() {
+        when(dao.doStoreItemValues(eq(TABLE), anyList())).thenReturn(false);
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 10, 1000, 10);
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(TABLE));
+
+        for (int i = 0; i < JdbcBatchWriter.MAX_ATTEMPTS; i++) {
+            writer.flush();
+        }
+
+        verify(listener, times(JdbcBatchWriter.MAX_ATTEMPTS)).failed();
+        assertThat(writer.getQueueDepth(), is(0));
+        assertThat(writer.getDroppedValues(), is(2L));
+    }
+
+    @Test
+    public void requeueIsBoundedByTheQueueSize() {
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 2, 1000, 2);
+        doAnswer(invocation -> {
+            // new values fill the queue while the batch is written
+            writer.add(newItemVO(OTHER_TABLE));
+            return false;
+        }).when(dao).doStoreItemValues(eq(TABLE), anyList());
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(TABLE));
+
+        writer.flush();
+
+        assertThat(writer.getQueueDepth(), is(2));
+        assertThat(writer.getDroppedValues(), is(1L));
+    }
+
+    @Test
+    public void flushOfTableWritesOnlyThatTable() {
+        when(dao.doStoreItemValues(eq(TABLE), anyList())).thenReturn(true);
+        JdbcBatchWriter writer = new JdbcBatchWriter(dao, scheduler, listener, 10, 1000, 10);
+        writer.add(newItemVO(TABLE));
+        writer.add(newItemVO(OTHER_TABLE));
+        writer.add(newItemVO(TABLE));
+
+        writer.flush(TABLE);
+
+        verify(dao).doStoreItemValues(eq(TABLE), argThat(values -> values.size() == 2));
+        verify(dao, never()).doStoreItemValues(eq(OTHER_TABLE), anyList());
+        assertThat(writer.getQueueDepth(), is(1));
+    }
+
+    private ItemVO newItemVO(String table) {
+        ItemVO vo = new ItemVO(table, null);
+        // different times, otherwise the values replace each other
+        vo.setTime(new Date(time++));
+        vo.setValue(1);
+        return vo;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class PreparedStatementCacheTest {
+
+    private final PreparedStatementCache cache = new PreparedStatementCache(2);
+
+    private Connection newConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(i -> mock(PreparedStatement.class));
+        return connection;
+    }
+
+    @Test
+    public void statementIsPreparedOncePerConnection() throws SQLException {
+        Connection first = newConnection();
+        Connection second = newConnection();
+
+        PreparedStatement ps = cache.prepare(first, "a");
+
+        assertThat(cache.prepare(first, "a"), is(sameInstance(ps)));
+        assertThat(cache.prepare(second, "a"), is(not(sameInstance(ps))));
+        verify(first, times(1)).prepareStatement("a");
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsClosed() throws SQLException {
+        Connection connection = newConnection();
+        PreparedStatement a = cache.prepare(connection, "a");
+        PreparedStatement b = cache.prepare(connection, "b");
+        cache.prepare(connection, "a");
+
+        cache.prepare(connection, "c");
+
+        verify(b).close();
+        verify(a, never()).close();
+        assertThat(cache.prepare(connection, "a"), is(sameInstance(a)));
+    }
+
+    @Test
+    public void clearDoesNotCloseStatementsInUse() throws SQLException {
+        Connection connection = newConnection();
+        PreparedStatement ps = cache.prepare(connection, "a");
+
+        cache.clear();
+
+        verify(ps, never()).close();
+        // the next use of the connection closes the forgotten statements
+        PreparedStatement next = cache.prepare(connection, "a");
+        verify(ps).close();
+        assertThat(next, is(not(sameInstance(ps))));
+    }
+
+    @Test
+    public void retiredConnectionIsForgotten() throws SQLException {
+        Connection retired = newConnection();
+        Connection other = newConnection();
+        cache.prepare(retired, "a");
+        cache.prepare(other, "a");
+        assertThat(cache.getConnectionCount(), is(2));
+
+        // the pool closes the physical connection, e.g. after its maximum lifetime
+        when(retired.isClosed()).thenReturn(true);
+        cache.prepare(other, "a");
+
+        assertThat(cache.getConnectionCount(), is(1));
+    }
+}
@@ -13,6 +13,7 @@
 package org.openhab.persistence.jpa.internal;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,9 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_QUERY_MAX_POINTS = "queryMaxPoints";
+    private static final String CFG_QUERY_AGGREGATION = "queryAggregation";
+    private static final Set<String> AGGREGATIONS = Set.of("AVG", "MIN", "MAX", "LAST");
 
     public static boolean isInitialized = false;
 
@@ -40,6 +44,8 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int queryMaxPoints;
+    public final String queryAggregation;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,6 +83,22 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        int maxPoints = 0;
+        param = String.valueOf(properties.getOrDefault(CFG_QUERY_MAX_POINTS, "0")).trim();
+        try {
+            maxPoints = Integer.parseInt(param);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} '{}' in jpa.cfg, queries are not downsampled!", CFG_QUERY_MAX_POINTS, param);
+        }
+        queryMaxPoints = maxPoints;
+
+        param = String.valueOf(properties.getOrDefault(CFG_QUERY_AGGREGATION, "AVG")).trim().toUpperCase();
+        if (!AGGREGATIONS.contains(param)) {
+            logger.warn("Invalid {} '{}' in jpa.cfg, using AVG!", CFG_QUERY_AGGREGATION, param);
+            param = "AVG";
+        }
+        queryAggregation = param;
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
+
+/**
+ * Reduces the values of a query to one value per time bucket while the rows are read, so only one value per
+ * bucket is kept in memory.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+public class JpaDownsampler {
+
+    private final Item item;
+    private final long beginMillis;
+    private final long bucketMillis;
+    private final String aggregation;
+    private final List<HistoricItem> result = new ArrayList<>();
+
+    private long bucket = -1;
+    private int count;
+    private double sum;
+    private double min;
+    private double max;
+    private double last;
+    private long firstTime;
+    private long lastTime;
+
+    public JpaDownsampler(Item item, ZonedDateTime begin, long bucketMillis, String aggregation) {
+        this.item = item;
+        this.beginMillis = begin.toInstant().toEpochMilli();
+        this.bucketMillis = bucketMillis;
+        this.aggregation = aggregation;
+    }
+
+    /**
+     * Adds a value, values have to be added in ascending order of their timestamp.
+     */
+    public void add(Date timestamp, String value) {
+        double v;
+        try {
+            v = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        long time = timestamp.getTime();
+        long b = (time - beginMillis) / bucketMillis;
+        if (b != bucket) {
+            flush();
+            bucket = b;
+            count = 0;
+            sum = 0;
+            min = v;
+            max = v;
+            firstTime = time;
+        }
+        count++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+        last = v;
+        lastTime = time;
+    }
+
+    /**
+     * @param ascending order of the returned values
+     * @return one historic item per bucket
+     */
+    public List<HistoricItem> getResult(boolean ascending) {
+        flush();
+        bucket = -1;
+        List<HistoricItem> ret = new ArrayList<>(result);
+        if (!ascending) {
+            Collections.reverse(ret);
+        }
+        return ret;
+    }
+
+    private void flush() {
+        if (bucket < 0 || count == 0) {
+            return;
+        }
+        double value;
+        long time = firstTime;
+        switch (aggregation) {
+            case "MIN":
+                value = min;
+                break;
+            case "MAX":
+                value = max;
+                break;
+            case "LAST":
+                value = last;
+                time = lastTime;
+                break;
+            default:
+                value = sum / count;
+                break;
+        }
+        State state = item instanceof NumberItem ? new DecimalType(value)
+                : new PercentType(Math.max(0, Math.min(100, (int) Math.round(value))));
+        result.add(new JpaHistoricItem(item.getName(), state,
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault())));
+        count = 0;
+    }
+}
@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -30,6 +32,10 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.ColorItem;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
@@ -57,6 +63,8 @@ import org.slf4j.LoggerFactory;
 @Component(service = { PersistenceService.class,
         QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class JpaPersistenceService implements QueryablePersistenceService {
+    private static final int DOWNSAMPLE_PAGE_SIZE = 10000;
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
@@ -177,6 +185,17 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         String itemName = filter.getItemName();
         Item item = getItemFromRegistry(itemName);
 
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (config.queryMaxPoints > 0 && beginDate != null && filter.getPageSize() == Integer.MAX_VALUE
+                && (item instanceof NumberItem || item instanceof RollershutterItem
+                        || (item instanceof DimmerItem && !(item instanceof ColorItem)))) {
+            ZonedDateTime endDate = filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now();
+            long bucketMillis = Duration.between(beginDate, endDate).toMillis() / config.queryMaxPoints;
+            if (bucketMillis > 1000) {
+                return queryDownsampled(filter, item, beginDate, bucketMillis);
+            }
+        }
+
         String sortOrder;
         if (filter.getOrdering() == Ordering.ASCENDING) {
             sortOrder = "ASC";
@@ -240,6 +259,83 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         return Collections.emptyList();
     }
 
+    /**
+     * Reads the values of a numeric item page by page and reduces them to at most 'queryMaxPoints' values.
+     * The values are kept as strings in a single table, so the buckets are calculated while reading instead of by
+     * the database; only the timestamp and value columns are fetched and only one value per bucket is kept.
+     * The pages continue after the timestamp and id of the last row read, so every page is an index range scan
+     * instead of skipping all rows read before.
+     */
+    private List<HistoricItem> queryDownsampled(FilterCriteria filter, Item item, ZonedDateTime beginDate,
+            long bucketMillis) {
+        String queryString = "SELECT n.timestamp, n.value, n.id FROM " + JpaPersistentItem.class.getSimpleName()
+                + " n WHERE n.realName = :itemName AND n.timestamp >= :beginDate";
+        if (filter.getEndDate() != null) {
+            queryString += " AND n.timestamp <= :endDate";
+        }
+        String order = " ORDER BY n.timestamp ASC, n.id ASC";
+        String nextPageString = queryString + " AND (n.timestamp > :lastTimestamp"
+                + " OR (n.timestamp = :lastTimestamp AND n.id > :lastId))" + order;
+        queryString += order;
+
+        logger.debug("The query: {} (bucket size {} ms)", queryString, bucketMillis);
+
+        JpaDownsampler downsampler = new JpaDownsampler(item, beginDate, bucketMillis, config.queryAggregation);
+        EntityManager em = getEntityManagerFactory().createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Query query = createDownsampleQuery(em, queryString, filter, item, beginDate);
+            Query nextPageQuery = null;
+
+            int count = 0;
+            List<?> page = query.getResultList();
+            while (true) {
+                Object[] columns = null;
+                for (Object row : page) {
+                    columns = (Object[]) row;
+                    downsampler.add((Date) columns[0], (String) columns[1]);
+                }
+                count += page.size();
+                em.clear();
+                if (columns == null || page.size() < DOWNSAMPLE_PAGE_SIZE) {
+                    break;
+                }
+                if (nextPageQuery == null) {
+                    nextPageQuery = createDownsampleQuery(em, nextPageString, filter, item, beginDate);
+                }
+                nextPageQuery.setParameter("lastTimestamp", columns[0]);
+                nextPageQuery.setParameter("lastId", columns[2]);
+                page = nextPageQuery.getResultList();
+            }
+
+            em.getTransaction().commit();
+
+            List<HistoricItem> historicList = downsampler.getResult(filter.getOrdering() == Ordering.ASCENDING);
+            logger.debug("Downsampled {} values to {}", count, historicList.size());
+            return historicList;
+        } catch (Exception e) {
+            logger.error("Error on querying database!", e);
+            em.getTransaction().rollback();
+        } finally {
+            em.close();
+        }
+
+        return Collections.emptyList();
+    }
+
+    private Query createDownsampleQuery(EntityManager em, String queryString, FilterCriteria filter, Item item,
+            ZonedDateTime beginDate) {
+        Query query = em.createQuery(queryString);
+        query.setParameter("itemName", item.getName());
+        query.setParameter("beginDate", Date.from(beginDate.toInstant()));
+        if (filter.getEndDate() != null) {
+            query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
+        }
+        query.setMaxResults(DOWNSAMPLE_PAGE_SIZE);
+        return query;
+    }
+
     /**
      * Creates a new EntityManagerFactory with properties read from openhab.cfg via JpaConfiguration.
      *
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.ItemNotFoundException;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tests the downsampled queries of the {@link JpaPersistenceService}.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class JpaPersistenceServiceTest {
+
+    private static final String ITEM_NAME = "test";
+    private static final int PAGE_SIZE = 10000;
+    // 10 points for 100 seconds, so every bucket is 10 seconds
+    private static final ZonedDateTime BEGIN = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
+    private static final ZonedDateTime END = BEGIN.plusSeconds(100);
+    private static final long BEGIN_MILLIS = BEGIN.toInstant().toEpochMilli();
+
+    private @Mock ItemRegistry itemRegistry;
+    private @Mock BundleContext bundleContext;
+    private @Mock EntityManagerFactory entityManagerFactory;
+    private @Mock EntityManager entityManager;
+    private @Mock EntityTransaction transaction;
+    private @Mock Query firstPageQuery;
+    private @Mock Query nextPageQuery;
+
+    private JpaPersistenceService service;
+
+    @BeforeEach
+    public void setUp() throws ItemNotFoundException {
+        when(itemRegistry.getItem(ITEM_NAME)).thenReturn(new NumberItem(ITEM_NAME));
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.getTransaction()).thenReturn(transaction);
+
+        service = new JpaPersistenceService(itemRegistry) {
+            @Override
+            protected @Nullable EntityManagerFactory getEntityManagerFactory() {
+                return entityManagerFactory;
+            }
+        };
+        service.activate(bundleContext, Map.of("url", "jdbc:test", "driver", "test.Driver", "queryMaxPoints", "10"));
+    }
+
+    @Test
+    public void valuesAreAveragedPerBucket() {
+        when(entityManager.createQuery(anyString())).thenReturn(firstPageQuery);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(0, "1", 1));
+        // the last millisecond of the first bucket
+        rows.add(row(9999, "3", 2));
+        // the first millisecond of the second bucket
+        rows.add(row(10000, "10", 3));
+        // no values in the buckets in between
+        rows.add(row(50000, "5", 4));
+        when(firstPageQuery.getResultList()).thenReturn(rows);
+
+        List<HistoricItem> result = query(Ordering.ASCENDING);
+
+        assertThat(result, hasSize(3));
+        assertValue(result.get(0), 0, 2);
+        assertValue(result.get(1), 10000, 10);
+        assertValue(result.get(2), 50000, 5);
+        verify(entityManager).createQuery(anyString());
+        verify(firstPageQuery, never()).setFirstResult(anyInt());
+    }
+
+    @Test
+    public void descendingOrderReversesTheBuckets() {
+        when(entityManager.createQuery(anyString())).thenReturn(firstPageQuery);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(0, "1", 1));
+        rows.add(row(20000, "2", 2));
+        when(firstPageQuery.getResultList()).thenReturn(rows);
+
+        List<HistoricItem> result = query(Ordering.DESCENDING);
+
+        assertThat(result, hasSize(2));
+        assertValue(result.get(0), 20000, 2);
+        assertValue(result.get(1), 0, 1);
+    }
+
+    @Test
+    public void nextPageContinuesAfterTheLastRow() {
+        when(entityManager.createQuery(anyString())).thenReturn(firstPageQuery, nextPageQuery);
+        List<Object[]> firstPage = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            firstPage.add(row(i, "1", i + 1));
+        }
+        when(firstPageQuery.getResultList()).thenReturn(firstPage);
+        List<Object[]> nextPage = new ArrayList<>();
+        // another value with the same timestamp as the last one of the first page
+        nextPage.add(row(PAGE_SIZE - 1, "1", PAGE_SIZE + 1));
+        nextPage.add(row(10000, "4", PAGE_SIZE + 2));
+        when(nextPageQuery.getResultList()).thenReturn(nextPage);
+
+        List<HistoricItem> result = query(Ordering.ASCENDING);
+
+        assertThat(result, hasSize(2));
+        assertValue(result.get(0), 0, 1);
+        assertValue(result.get(1), 10000, 4);
+        verify(entityManager).createQuery(contains(":lastTimestamp"));
+        verify(nextPageQuery).setParameter("lastTimestamp", new Date(BEGIN_MILLIS + PAGE_SIZE - 1));
+        verify(nextPageQuery).setParameter("lastId", (long) PAGE_SIZE);
+        verify(nextPageQuery).setMaxResults(PAGE_SIZE);
+        verify(firstPageQuery, never()).setFirstResult(anyInt());
+        verify(nextPageQuery, never()).setFirstResult(anyInt());
+    }
+
+    private List<HistoricItem> query(Ordering ordering) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(ITEM_NAME);
+        filter.setBeginDate(BEGIN);
+        filter.setEndDate(END);
+        filter.setOrdering(ordering);
+        List<HistoricItem> result = new ArrayList<>();
+        service.query(filter).forEach(result::add);
+        return result;
+    }
+
+    private static Object[] row(long offsetMillis, String value, long id) {
+        return new Object[] { new Date(BEGIN_MILLIS + offsetMillis), value, id };
+    }
+
+    private static void assertValue(HistoricItem historicItem, long offsetMillis, double value) {
+        assertThat(historicItem.getTimestamp().toInstant().toEpochMilli(), is(BEGIN_MILLIS + offsetMillis));
+        assertThat(((DecimalType) historicItem.getState()).doubleValue(), is(closeTo(value, 0.0001)));
+    }
+}
@@ -24,7 +24,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,6 +38,7 @@ import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -45,6 +50,7 @@ import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,31 +66,58 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
 
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final String CONFIG_COMMIT_SIZE = "commitSize";
+    private static final String CONFIG_CODEC = "codec";
+    private static final String CODEC_BINARY = "binary";
+    private static final int DEFAULT_COMMIT_INTERVAL = 1000;
+    private static final int DEFAULT_COMMIT_SIZE = 100;
+
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService threadPool = ThreadPoolManager
+            .getScheduledPool(getClass().getSimpleName());
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
     private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> binaryMap;
 
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
 
+    private final StateBinaryCodec binaryCodec = new StateBinaryCodec();
+    private boolean useBinaryCodec;
+
+    private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private int commitSize = DEFAULT_COMMIT_SIZE;
+    private final AtomicInteger pendingCommits = new AtomicInteger();
+    private final AtomicBoolean commitRequested = new AtomicBoolean();
+    private final Object commitLock = new Object();
+    private @Nullable ScheduledFuture<?> commitJob;
+
     @Activate
-    public void activate() {
+    public void activate(final Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
+        commitInterval = getIntConfig(config, CONFIG_COMMIT_INTERVAL, DEFAULT_COMMIT_INTERVAL);
+        commitSize = commitInterval > 0 ? getIntConfig(config, CONFIG_COMMIT_SIZE, DEFAULT_COMMIT_SIZE) : 1;
+        useBinaryCodec = CODEC_BINARY.equalsIgnoreCase(String.valueOf(config.get(CONFIG_CODEC)).trim());
+
         try {
             Files.createDirectories(DB_DIR);
         } catch (IOException e) {
@@ -97,6 +130,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         try {
             db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
             map = db.createTreeMap("itemStore").makeOrGet();
+            binaryMap = db.createTreeMap("itemStoreBinary").makeOrGet();
         } catch (RuntimeException re) {
             Throwable cause = re.getCause();
             if (cause instanceof ClassNotFoundException) {
@@ -130,18 +164,30 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
                 db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
                 map = db.createTreeMap("itemStore").makeOrGet();
+                binaryMap = db.createTreeMap("itemStoreBinary").makeOrGet();
             } else {
                 logger.warn("Failed to create or open the MapDB: {}", re.getMessage());
                 logger.warn("MapDB persistence service activation has failed.");
             }
         }
-        logger.debug("MapDB persistence service is now activated");
+        if (commitInterval > 0) {
+            commitJob = threadPool.scheduleWithFixedDelay(this::commitPending, commitInterval, commitInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.debug("MapDB persistence service is now activated (commitInterval={} ms, commitSize={}, codec={})",
+                commitInterval, commitSize, useBinaryCodec ? CODEC_BINARY : "json");
     }
 
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
+        ScheduledFuture<?> job = commitJob;
+        if (job != null) {
+            job.cancel(false);
+            commitJob = null;
+        }
         if (db != null) {
+            commitPending();
             db.close();
         }
     }
@@ -158,7 +204,10 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
+        return Stream
+                .concat(map.values().stream().map(this::deserialize),
+                        binaryMap.values().stream().map(this::deserialize))
+                .flatMap(MapDbPersistenceService::streamOptional)
                 .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
@@ -182,21 +231,35 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
-        commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+        if (useBinaryCodec) {
+            binaryMap.put(localAlias, binaryCodec.encode(mItem));
+            // an item is only kept in one of the maps, so that switching the codec does not return stale states
+            map.remove(localAlias);
+            logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
+        } else {
+            String json = serialize(mItem);
+            map.put(localAlias, json);
+            binaryMap.remove(localAlias);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+            }
         }
+        commit();
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
-            return List.of();
+        Optional<MapDbItem> item;
+        byte[] data = binaryMap.get(filter.getItemName());
+        if (data != null) {
+            item = deserialize(data);
+        } else {
+            String json = map.get(filter.getItemName());
+            if (json == null) {
+                return List.of();
+            }
+            item = deserialize(json);
         }
-        Optional<MapDbItem> item = deserialize(json);
         return item.isPresent() ? List.of(item.get()) : List.of();
     }
 
@@ -217,8 +280,61 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
+    private Optional<MapDbItem> deserialize(byte[] data) {
+        MapDbItem item = binaryCodec.decode(data);
+        if (item == null || !item.isValid()) {
+            logger.warn("Deserialized invalid item: {}", item);
+            return Optional.empty();
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Deserialized '{}' with state '{}'", item.getName(), item.getState());
+        }
+
+        return Optional.of(item);
+    }
+
     private void commit() {
-        threadPool.submit(() -> db.commit());
+        // changes are committed together, either every 'commitInterval' ms or after 'commitSize' changes
+        if (pendingCommits.incrementAndGet() >= commitSize && commitRequested.compareAndSet(false, true)) {
+            threadPool.submit(this::commitPending);
+        }
+    }
+
+    private void commitPending() {
+        commitRequested.set(false);
+        synchronized (commitLock) {
+            int pending = pendingCommits.getAndSet(0);
+            if (pending == 0 || db == null || db.isClosed()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                db.commit();
+                logger.debug("Committed {} changes to MapDB database in {} ms", pending,
+                        System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to commit {} changes to MapDB database: {}", pending, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the number of changes that are not yet committed
+     */
+    public int getPendingCommits() {
+        return pendingCommits.get();
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value '{}' for '{}', using {}", value, key, defaultValue);
+            return defaultValue;
+        }
     }
 
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
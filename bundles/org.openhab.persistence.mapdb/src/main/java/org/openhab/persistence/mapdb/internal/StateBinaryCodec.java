@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PlayPauseType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.RewindFastforwardType;
+import org.openhab.core.library.types.StringListType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact binary encoding of {@link MapDbItem}s, as an alternative to the JSON encoding done with
+ * {@link StateTypeAdapter}. Common state types are written as a single byte instead of their class name. The state
+ * itself is still written as {@link State#toFullString()} and parsed when it is read, so this saves space and encoding
+ * overhead, not parsing.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class StateBinaryCodec {
+    private static final byte VERSION = 1;
+    private static final byte OTHER_TYPE = -1;
+
+    // the index is stored in the database, so types must only be added at the end of this list
+    private static final List<Class<? extends State>> TYPES = List.of(DecimalType.class, QuantityType.class,
+            OnOffType.class, OpenClosedType.class, PercentType.class, HSBType.class, StringType.class,
+            DateTimeType.class, UpDownType.class, PointType.class, StringListType.class, PlayPauseType.class,
+            RewindFastforwardType.class);
+
+    private final Logger logger = LoggerFactory.getLogger(StateBinaryCodec.class);
+
+    private final Map<String, Class<? extends State>> otherTypes = new ConcurrentHashMap<>();
+
+    public byte[] encode(MapDbItem item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            State state = item.getState();
+            out.writeByte(VERSION);
+            writeString(out, item.getName());
+            out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+            int type = TYPES.indexOf(state.getClass());
+            out.writeByte(type);
+            if (type == OTHER_TYPE) {
+                writeString(out, state.getClass().getName());
+            }
+            writeString(out, state.toFullString());
+        } catch (IOException e) {
+            // cannot happen when writing to a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public @Nullable MapDbItem decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                logger.warn("Couldn't deserialize item: unknown version {}", version);
+                return null;
+            }
+            String name = readString(in);
+            long timestamp = in.readLong();
+            byte type = in.readByte();
+            Class<? extends State> valueType = type == OTHER_TYPE ? getType(readString(in)) : TYPES.get(type);
+            String value = readString(in);
+            State state = TypeParser.parseState(List.of(valueType), value);
+            if (state == null) {
+                logger.warn("Couldn't deserialize state '{}' of type {}", value, valueType.getName());
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            item.setState(state);
+            item.setTimestamp(new Date(timestamp));
+            return item;
+        } catch (IOException | RuntimeException | ClassNotFoundException e) {
+            logger.warn("Couldn't deserialize item: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends State> getType(String className) throws ClassNotFoundException {
+        Class<? extends State> type = otherTypes.get(className);
+        if (type == null) {
+            type = (Class<? extends State>) Class.forName(className);
+            otherTypes.put(className, type);
+        }
+        return type;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * Iterates over the documents of a query, reading them in pages of a bounded size.
+ *
+ * Each page is read completely and its cursor is closed right away, so no cursor is left open on the server when the
+ * caller stops iterating early. The documents are sorted by a field and their id, and the next page continues after
+ * the last document of the previous page instead of skipping the documents read before.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBDocumentIterator implements Iterator<DBObject> {
+
+    private static final String FIELD_ID = "_id";
+
+    private final DBCollection collection;
+    private final DBObject query;
+    private final String sortField;
+    private final boolean ascending;
+    private final int pageSize;
+    private final Deque<DBObject> page = new ArrayDeque<>();
+    private int skip;
+    private long remaining;
+    private @Nullable DBObject last;
+    private boolean exhausted;
+
+    /**
+     * @param collection the collection to query
+     * @param query the query of the documents
+     * @param sortField the field the documents are sorted by
+     * @param ascending whether the documents are sorted in ascending order
+     * @param skip number of documents to skip
+     * @param limit maximum number of documents to return
+     * @param pageSize maximum number of documents read at once
+     */
+    public MongoDBDocumentIterator(DBCollection collection, DBObject query, String sortField, boolean ascending,
+            int skip, long limit, int pageSize) {
+        this.collection = collection;
+        this.query = query;
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.skip = skip;
+        this.remaining = limit;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (page.isEmpty() && !exhausted && remaining > 0) {
+            readPage();
+        }
+        return !page.isEmpty();
+    }
+
+    @Override
+    public DBObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+        return page.poll();
+    }
+
+    private void readPage() {
+        int limit = (int) Math.min(pageSize, remaining);
+        int direction = ascending ? 1 : -1;
+        DBCursor cursor = collection.find(getPageQuery())
+                .sort(new BasicDBObject(sortField, direction).append(FIELD_ID, direction)).skip(skip).limit(limit);
+        List<DBObject> documents;
+        try {
+            documents = cursor.toArray();
+        } finally {
+            cursor.close();
+        }
+        skip = 0;
+        exhausted = documents.size() < limit;
+        if (!documents.isEmpty()) {
+            last = documents.get(documents.size() - 1);
+            page.addAll(documents);
+        }
+    }
+
+    /**
+     * @return the query for the documents after the last document read
+     */
+    private DBObject getPageQuery() {
+        DBObject last = this.last;
+        if (last == null) {
+            return query;
+        }
+        String operator = ascending ? "$gt" : "$lt";
+        Object lastValue = last.get(sortField);
+        BasicDBList after = new BasicDBList();
+        after.add(new BasicDBObject(sortField, new BasicDBObject(operator, lastValue)));
+        after.add(new BasicDBObject(sortField, lastValue).append(FIELD_ID,
+                new BasicDBObject(operator, last.get(FIELD_ID))));
+        BasicDBList conditions = new BasicDBList();
+        conditions.add(query);
+        conditions.add(new BasicDBObject("$or", after));
+        return new BasicDBObject("$and", conditions);
+    }
+}
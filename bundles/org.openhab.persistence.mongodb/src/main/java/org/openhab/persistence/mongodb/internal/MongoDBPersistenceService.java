@@ -14,17 +14,32 @@ package org.openhab.persistence.mongodb.internal;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -59,16 +74,25 @@ import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
+import com.mongodb.MongoException;
 
 /**
  * This is the implementation of the MongoDB {@link PersistenceService}.
  *
+ * Values are buffered and written together with a single insert every {@code flushInterval} milliseconds. Values
+ * that could not be written stay buffered and are retried with the next write. With the {@code bucket} layout the
+ * values of an item are stored as samples of one document per item and time bucket, instead of one document per
+ * value. Query results are read in pages while they are iterated, so they can only be iterated once.
+ *
  * @author Thorsten Hoeger - Initial contribution
  */
 @NonNullByDefault
@@ -81,6 +105,22 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private static final String FIELD_REALNAME = "realName";
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
+    private static final String FIELD_START = "start";
+    private static final String FIELD_END = "end";
+    private static final String FIELD_COUNT = "count";
+    private static final String FIELD_SAMPLES = "samples";
+
+    private static final String CONFIG_FLUSH_INTERVAL = "flushInterval";
+    private static final String CONFIG_FLUSH_SIZE = "flushSize";
+    private static final String CONFIG_LAYOUT = "layout";
+    private static final String CONFIG_BUCKET_MINUTES = "bucketMinutes";
+    private static final String LAYOUT_BUCKET = "bucket";
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_FLUSH_SIZE = 100;
+    private static final int DEFAULT_BUCKET_MINUTES = 60;
+    private static final int QUERY_BATCH_SIZE = 500;
+    private static final int MAX_BUFFERED_VALUES = 10000;
+    private static final int DUPLICATE_KEY = 11000;
 
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
@@ -90,10 +130,24 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     private boolean initialized = false;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager
+            .getScheduledPool(getClass().getSimpleName());
+
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int flushSize = DEFAULT_FLUSH_SIZE;
+    private boolean bucketLayout;
+    private long bucketMillis = TimeUnit.MINUTES.toMillis(DEFAULT_BUCKET_MINUTES);
+    private List<DBObject> buffer = new ArrayList<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private final AtomicLong droppedValues = new AtomicLong();
+    private @Nullable ScheduledFuture<?> flushJob;
+
     protected final ItemRegistry itemRegistry;
 
     private @NonNullByDefault({}) MongoClient cl;
-    private @NonNullByDefault({}) DBCollection mongoCollection;
+    private volatile @NonNullByDefault({}) DBCollection mongoCollection;
 
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
@@ -122,9 +176,22 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
+        flushInterval = getIntConfig(config, CONFIG_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+        flushSize = flushInterval > 0 ? Math.max(1, getIntConfig(config, CONFIG_FLUSH_SIZE, DEFAULT_FLUSH_SIZE)) : 1;
+        bucketLayout = LAYOUT_BUCKET.equalsIgnoreCase(String.valueOf(config.get(CONFIG_LAYOUT)).trim());
+        bucketMillis = TimeUnit.MINUTES
+                .toMillis(Math.max(1, getIntConfig(config, CONFIG_BUCKET_MINUTES, DEFAULT_BUCKET_MINUTES)));
+        logger.debug("MongoDB flushInterval={} ms, flushSize={}, layout={}", flushInterval, flushSize,
+                bucketLayout ? LAYOUT_BUCKET : "document");
+
         disconnectFromDatabase();
         connectToDatabase();
 
+        if (flushInterval > 0) {
+            flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+
         // connection has been established... initialization completed!
         initialized = true;
     }
@@ -132,9 +199,39 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        if (initialized) {
+            flush();
+            int lost;
+            synchronized (bufferLock) {
+                lost = buffer.size();
+                buffer = new ArrayList<>();
+            }
+            if (lost > 0) {
+                logger.warn("mongodb: {} values could not be written before stopping and are lost", lost);
+            }
+        }
+        initialized = false;
         disconnectFromDatabase();
     }
 
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value '{}' for '{}', using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Override
     public String getId() {
         return "mongodb";
@@ -158,19 +255,6 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
-        // Connect to mongodb server if we're not already connected
-        if (!isConnected()) {
-            connectToDatabase();
-        }
-
-        // If we still didn't manage to connect, then return!
-        if (!isConnected()) {
-            logger.warn(
-                    "mongodb: No connection to database. Cannot persist item '{}'! Will retry connecting to database next time.",
-                    item);
-            return;
-        }
-
         String realName = item.getName();
         String name = (alias != null) ? alias : realName;
         Object value = this.convertValue(item.getState());
@@ -181,11 +265,196 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         obj.put(FIELD_REALNAME, realName);
         obj.put(FIELD_TIMESTAMP, new Date());
         obj.put(FIELD_VALUE, value);
-        this.mongoCollection.save(obj);
+
+        int buffered;
+        synchronized (bufferLock) {
+            buffer.add(obj);
+            buffered = buffer.size();
+        }
+        if (flushInterval == 0) {
+            // written right away, together with the values that failed before
+            flush();
+        } else if (buffered >= flushSize && flushRequested.compareAndSet(false, true)) {
+            // values are written together, either every 'flushInterval' ms or after 'flushSize' values
+            scheduler.submit(this::flush);
+        }
 
         logger.debug("MongoDB save {}={}", name, value);
     }
 
+    /**
+     * Writes all buffered values to the database.
+     */
+    private void flush() {
+        flushRequested.set(false);
+        flush(null);
+    }
+
+    /**
+     * Writes the buffered values of an item, or all buffered values if no item is given, to the database. Values that
+     * could not be written are buffered again and retried with the next write.
+     */
+    private void flush(@Nullable String itemName) {
+        synchronized (flushLock) {
+            List<DBObject> documents;
+            synchronized (bufferLock) {
+                if (itemName == null) {
+                    documents = buffer;
+                    buffer = new ArrayList<>();
+                } else {
+                    List<DBObject> values = new ArrayList<>();
+                    buffer.removeIf(
+                            document -> Objects.equals(itemName, document.get(FIELD_ITEM)) && values.add(document));
+                    documents = values;
+                }
+            }
+            if (documents.isEmpty()) {
+                return;
+            }
+            List<DBObject> failed = write(documents);
+            if (!failed.isEmpty()) {
+                retry(failed);
+            }
+        }
+    }
+
+    /**
+     * Puts values that could not be written back in front of the buffer. The buffer is bounded, the oldest values
+     * are dropped if it is full.
+     */
+    private void retry(List<DBObject> failed) {
+        int dropped;
+        synchronized (bufferLock) {
+            List<DBObject> documents = new ArrayList<>(failed);
+            documents.addAll(buffer);
+            dropped = Math.max(0, documents.size() - MAX_BUFFERED_VALUES);
+            buffer = new ArrayList<>(documents.subList(dropped, documents.size()));
+        }
+        if (dropped > 0) {
+            logger.warn("mongodb: Dropped {} values that could not be written, {} values dropped in total", dropped,
+                    droppedValues.addAndGet(dropped));
+        }
+    }
+
+    /**
+     * Writes the values to the database.
+     *
+     * @return the values that could not be written
+     */
+    private List<DBObject> write(List<DBObject> documents) {
+        // Connect to mongodb server if we're not already connected
+        if (!isConnected()) {
+            try {
+                connectToDatabase();
+            } catch (RuntimeException e) {
+                // logged by connectToDatabase
+            }
+        }
+
+        // If we still didn't manage to connect, then return!
+        if (!isConnected()) {
+            logger.warn(
+                    "mongodb: No connection to database. Cannot persist {} values! Will retry connecting to database next time.",
+                    documents.size());
+            return documents;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            List<DBObject> failed = bucketLayout ? writeBuckets(documents) : writeDocuments(documents);
+            logger.debug("MongoDB wrote {} values in {} ms", documents.size() - failed.size(),
+                    System.currentTimeMillis() - start);
+            return failed;
+        } catch (MongoException e) {
+            // with the bucket layout, values of a write that failed after reaching the database may be stored twice
+            logger.warn("mongodb: Failed to persist {} values, will retry: {}", documents.size(), e.getMessage());
+            return documents;
+        }
+    }
+
+    /**
+     * Inserts the values with a single bulk write. The ids are assigned before the first attempt, so values that were
+     * already inserted by a failed attempt are not inserted twice.
+     *
+     * @return the values that could not be written
+     */
+    private List<DBObject> writeDocuments(List<DBObject> documents) {
+        BulkWriteOperation bulk = this.mongoCollection.initializeUnorderedBulkOperation();
+        documents.forEach(bulk::insert);
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (BulkWriteException e) {
+            List<DBObject> failed = new ArrayList<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    failed.add(documents.get(error.getIndex()));
+                }
+            }
+            logFailed(failed, e);
+            return failed;
+        }
+    }
+
+    /**
+     * Appends the values to the bucket documents of their items, creating the buckets if needed. All buckets are
+     * updated with a single bulk write.
+     *
+     * @return the values of the buckets that could not be written
+     */
+    private List<DBObject> writeBuckets(List<DBObject> documents) {
+        Map<String, BasicDBObject> buckets = new LinkedHashMap<>();
+        Map<String, List<DBObject>> bucketValues = new LinkedHashMap<>();
+        for (DBObject document : documents) {
+            String name = (String) document.get(FIELD_ITEM);
+            Date timestamp = (Date) document.get(FIELD_TIMESTAMP);
+            long start = timestamp.getTime() - Math.floorMod(timestamp.getTime(), bucketMillis);
+            BasicDBObject bucket = buckets.computeIfAbsent(name + "/" + start,
+                    key -> new BasicDBObject(FIELD_ITEM, name).append(FIELD_REALNAME, document.get(FIELD_REALNAME))
+                            .append(FIELD_START, new Date(start)).append(FIELD_END, new Date(start + bucketMillis))
+                            .append(FIELD_SAMPLES, new BasicDBList()));
+            ((BasicDBList) bucket.get(FIELD_SAMPLES)).add(new BasicDBObject(FIELD_TIMESTAMP, timestamp)
+                    .append(FIELD_VALUE, document.get(FIELD_VALUE)));
+            bucketValues.computeIfAbsent(name + "/" + start, key -> new ArrayList<>()).add(document);
+        }
+
+        BulkWriteOperation bulk = this.mongoCollection.initializeUnorderedBulkOperation();
+        for (BasicDBObject bucket : buckets.values()) {
+            BasicDBList samples = (BasicDBList) bucket.get(FIELD_SAMPLES);
+            DBObject query = new BasicDBObject(FIELD_ITEM, bucket.get(FIELD_ITEM)).append(FIELD_START,
+                    bucket.get(FIELD_START));
+            DBObject update = new BasicDBObject("$setOnInsert",
+                    new BasicDBObject(FIELD_REALNAME, bucket.get(FIELD_REALNAME)).append(FIELD_END,
+                            bucket.get(FIELD_END)))
+                    .append("$inc", new BasicDBObject(FIELD_COUNT, samples.size()))
+                    .append("$push", new BasicDBObject(FIELD_SAMPLES, new BasicDBObject("$each", samples)));
+            bulk.find(query).upsert().updateOne(update);
+        }
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (BulkWriteException e) {
+            // the operations are in the order of the buckets, only the failed buckets are written again
+            List<List<DBObject>> values = new ArrayList<>(bucketValues.values());
+            List<DBObject> failed = new ArrayList<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.addAll(values.get(error.getIndex()));
+            }
+            logFailed(failed, e);
+            return failed;
+        }
+    }
+
+    private void logFailed(List<DBObject> failed, BulkWriteException e) {
+        if (!failed.isEmpty()) {
+            logger.warn("mongodb: Failed to persist {} values, will retry: {}", failed.size(),
+                    e.getWriteErrors().get(0).getMessage());
+        } else if (e.getWriteConcernError() != null) {
+            // the values were written, but not acknowledged as requested
+            logger.debug("MongoDB write concern error: {}", e.getWriteConcernError());
+        }
+    }
+
     private Object convertValue(State state) {
         Object value;
         if (state instanceof PercentType) {
@@ -232,8 +501,19 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             mongoCollection = cl.getDB(this.db).getCollection(this.collection);
 
             BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
+            if (bucketLayout) {
+                idx.append(FIELD_ITEM, 1).append(FIELD_START, 1);
+            } else {
+                idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
+            }
             this.mongoCollection.createIndex(idx);
+
+            // only the documents of the configured layout are read
+            if (this.mongoCollection.findOne(new BasicDBObject(FIELD_SAMPLES, exists(!bucketLayout))) != null) {
+                logger.warn(
+                        "MongoDB collection {} contains documents of the {} layout, queries ignore them. Use one collection per layout.",
+                        this.collection, bucketLayout ? "document" : LAYOUT_BUCKET);
+            }
             logger.debug("Connect MongoDB ... done");
         } catch (Exception e) {
             logger.error("Failed to connect to database {}", this.url);
@@ -241,6 +521,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private static DBObject exists(boolean exists) {
+        return new BasicDBObject("$exists", exists);
+    }
+
     /**
      * Disconnects from the database
      */
@@ -267,55 +551,229 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
 
         String name = filter.getItemName();
+
+        // make values of the item that are not yet written visible to the query
+        flush(name);
+
         Item item = getItem(name);
 
-        List<HistoricItem> items = new ArrayList<>();
+        ZonedDateTime filterBeginDate = filter.getBeginDate();
+        ZonedDateTime filterEndDate = filter.getEndDate();
+        State filterState = filter.getState();
+        @Nullable Date beginDate = filterBeginDate == null ? null : Date.from(filterBeginDate.toInstant());
+        @Nullable Date endDate = filterEndDate == null ? null : Date.from(filterEndDate.toInstant());
+        @Nullable Operator operator = filterState != null ? filter.getOperator() : null;
+        @Nullable Object filterValue = filterState != null ? convertValue(filterState) : null;
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+
         DBObject query = new BasicDBObject();
         if (filter.getItemName() != null) {
             query.put(FIELD_ITEM, filter.getItemName());
         }
-        if (filter.getState() != null && filter.getOperator() != null) {
-            String op = convertOperator(filter.getOperator());
-            Object value = convertValue(filter.getState());
-            query.put(FIELD_VALUE, new BasicDBObject(op, value));
-        }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$gte", filter.getBeginDate()));
-        }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$lte", filter.getBeginDate()));
-        }
-
-        Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
-        DBCursor cursor = this.mongoCollection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
-                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize());
-
-        while (cursor.hasNext()) {
-            BasicDBObject obj = (BasicDBObject) cursor.next();
-
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
-            } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
+        DBCollection dbCollection = this.mongoCollection;
+
+        if (bucketLayout) {
+            // buckets overlapping the time range, the samples are filtered while iterating
+            query.put(FIELD_SAMPLES, exists(true));
+            if (beginDate != null) {
+                query.put(FIELD_END, new BasicDBObject("$gt", beginDate));
+            }
+            if (endDate != null) {
+                query.put(FIELD_START, new BasicDBObject("$lte", endDate));
+            }
+            Comparator<DBObject> order = Comparator.comparing(sample -> (Date) sample.get(FIELD_TIMESTAMP));
+            Comparator<DBObject> sampleOrder = ascending ? order : order.reversed();
+            Function<DBObject, List<DBObject>> samples = bucket -> {
+                List<DBObject> matching = new ArrayList<>();
+                Object bucketSamples = bucket.get(FIELD_SAMPLES);
+                if (!(bucketSamples instanceof BasicDBList)) {
+                    return matching;
+                }
+                for (Object element : (BasicDBList) bucketSamples) {
+                    DBObject sample = (DBObject) element;
+                    Date timestamp = (Date) sample.get(FIELD_TIMESTAMP);
+                    if ((beginDate == null || !timestamp.before(beginDate))
+                            && (endDate == null || !timestamp.after(endDate))
+                            && (operator == null || matches(operator, filterValue, sample.get(FIELD_VALUE)))) {
+                        matching.add(sample);
+                    }
+                }
+                matching.sort(sampleOrder);
+                return matching;
+            };
+            long skip = (long) filter.getPageNumber() * filter.getPageSize();
+            return new QueryResult(() -> new HistoricItemIterator(item, name, dbCollection,
+                    new MongoDBDocumentIterator(dbCollection, query, FIELD_START, ascending, 0, Long.MAX_VALUE,
+                            QUERY_BATCH_SIZE),
+                    samples, skip, filter.getPageSize()));
+        }
+
+        if (operator != null) {
+            query.put(FIELD_VALUE, new BasicDBObject(convertOperator(operator), filterValue));
+        }
+        if (beginDate != null || endDate != null) {
+            BasicDBObject range = new BasicDBObject();
+            if (beginDate != null) {
+                range.put("$gte", beginDate);
+            }
+            if (endDate != null) {
+                range.put("$lte", endDate);
+            }
+            query.put(FIELD_TIMESTAMP, range);
+        } else {
+            query.put(FIELD_TIMESTAMP, exists(true));
+        }
+
+        return new QueryResult(() -> new HistoricItemIterator(item, name, dbCollection,
+                new MongoDBDocumentIterator(dbCollection, query, FIELD_TIMESTAMP, ascending,
+                        filter.getPageNumber() * filter.getPageSize(), filter.getPageSize(), QUERY_BATCH_SIZE),
+                Collections::singletonList, 0, Long.MAX_VALUE));
+    }
+
+    private HistoricItem toHistoricItem(@Nullable Item item, String name, DBObject dbObject) {
+        BasicDBObject obj = (BasicDBObject) dbObject;
+
+        final State state;
+        if (item instanceof NumberItem) {
+            state = new DecimalType(obj.getDouble(FIELD_VALUE));
+        } else if (item instanceof DimmerItem) {
+            state = new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof SwitchItem) {
+            state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof ContactItem) {
+            state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof RollershutterItem) {
+            state = new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof DateTimeItem) {
+            state = new DateTimeType(
+                    ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+        } else {
+            state = new StringType(obj.getString(FIELD_VALUE));
+        }
+
+        return new MongoDBItem(name, state,
+                ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Compares a stored value like the query operator would do in the database.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private boolean matches(Operator operator, @Nullable Object filterValue, @Nullable Object value) {
+        if (filterValue == null || value == null) {
+            return false;
+        }
+        if (operator == Operator.EQ || operator == Operator.NEQ) {
+            boolean equal = filterValue instanceof Number && value instanceof Number
+                    ? ((Number) filterValue).doubleValue() == ((Number) value).doubleValue()
+                    : filterValue.equals(value);
+            return equal == (operator == Operator.EQ);
+        }
+        int comparison;
+        if (filterValue instanceof Number && value instanceof Number) {
+            comparison = Double.compare(((Number) value).doubleValue(), ((Number) filterValue).doubleValue());
+        } else if (value instanceof Comparable && filterValue.getClass() == value.getClass()) {
+            comparison = ((Comparable) value).compareTo(filterValue);
+        } else {
+            return false;
+        }
+        switch (operator) {
+            case GT:
+                return comparison > 0;
+            case GTE:
+                return comparison >= 0;
+            case LT:
+                return comparison < 0;
+            case LTE:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The result of a query. The documents are read while iterating, so the result can only be iterated once.
+     */
+    private static class QueryResult implements Iterable<HistoricItem> {
+        private final AtomicBoolean iterated = new AtomicBoolean();
+        private final Supplier<Iterator<HistoricItem>> iterator;
+
+        QueryResult(Supplier<Iterator<HistoricItem>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Iterator<HistoricItem> iterator() {
+            if (iterated.getAndSet(true)) {
+                throw new IllegalStateException("MongoDB query results can only be iterated once");
             }
+            return iterator.get();
+        }
+    }
 
-            items.add(new MongoDBItem(name, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+    /**
+     * Maps the documents of a query to {@link HistoricItem}s while iterating, so that at most one page of documents is
+     * held in memory. Reading more documents fails once the service has disconnected from the database.
+     */
+    private class HistoricItemIterator implements Iterator<HistoricItem> {
+        private final @Nullable Item item;
+        private final String name;
+        private final DBCollection collection;
+        private final Iterator<DBObject> documents;
+        private final Function<DBObject, List<DBObject>> values;
+        private final Deque<DBObject> pending = new ArrayDeque<>();
+        private long skip;
+        private long remaining;
+
+        /**
+         * @param values maps a document to the documents holding a single value
+         * @param skip number of values to skip
+         * @param limit maximum number of values to return
+         */
+        HistoricItemIterator(@Nullable Item item, String name, DBCollection collection, Iterator<DBObject> documents,
+                Function<DBObject, List<DBObject>> values, long skip, long limit) {
+            this.item = item;
+            this.name = name;
+            this.collection = collection;
+            this.documents = documents;
+            this.values = values;
+            this.skip = skip;
+            this.remaining = limit;
         }
 
-        return items;
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && remaining > 0) {
+                if (mongoCollection != collection) {
+                    throw new IllegalStateException("MongoDB persistence service disconnected while reading " + name);
+                }
+                if (!documents.hasNext()) {
+                    remaining = 0;
+                    break;
+                }
+                for (DBObject value : values.apply(documents.next())) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        pending.add(value);
+                    }
+                }
+            }
+            if (remaining <= 0) {
+                pending.clear();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return toHistoricItem(item, name, pending.poll());
+        }
     }
 
     private @Nullable String convertOperator(Operator operator) {
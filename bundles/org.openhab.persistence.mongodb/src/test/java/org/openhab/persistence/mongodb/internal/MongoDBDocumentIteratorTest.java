@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class MongoDBDocumentIteratorTest {
+
+    private static final String FIELD = "timestamp";
+
+    private final DBCollection collection = mock(DBCollection.class);
+    private final DBObject query = new BasicDBObject("item", "test");
+
+    private static DBObject document(int i) {
+        return new BasicDBObject("_id", i).append(FIELD, i);
+    }
+
+    private DBCursor cursor(DBObject... documents) {
+        DBCursor cursor = mock(DBCursor.class, RETURNS_SELF);
+        doReturn(new ArrayList<>(List.of(documents))).when(cursor).toArray();
+        return cursor;
+    }
+
+    private static List<DBObject> readAll(MongoDBDocumentIterator iterator) {
+        List<DBObject> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    @Test
+    public void partialIterationClosesCursor() {
+        DBCursor cursor = cursor(document(1), document(2), document(3));
+        when(collection.find(any(DBObject.class))).thenReturn(cursor);
+
+        MongoDBDocumentIterator iterator = new MongoDBDocumentIterator(collection, query, FIELD, true, 0,
+                Long.MAX_VALUE, 10);
+        assertThat(iterator.next(), is(document(1)));
+
+        // the caller stops iterating here
+        verify(cursor).close();
+    }
+
+    @Test
+    public void pagesContinueAfterLastDocument() {
+        DBCursor first = cursor(document(1), document(2));
+        DBCursor second = cursor(document(3));
+        when(collection.find(any(DBObject.class))).thenReturn(first, second);
+
+        MongoDBDocumentIterator iterator = new MongoDBDocumentIterator(collection, query, FIELD, true, 5,
+                Long.MAX_VALUE, 2);
+
+        assertThat(readAll(iterator), contains(document(1), document(2), document(3)));
+        ArgumentCaptor<DBObject> queries = ArgumentCaptor.forClass(DBObject.class);
+        // the second page was shorter than the page size, so there is no third query
+        verify(collection, times(2)).find(queries.capture());
+        assertThat(queries.getAllValues().get(0), is(query));
+        assertThat(queries.getAllValues().get(1).toString(), allOf(containsString("$gt"), containsString("item")));
+        verify(first).skip(5);
+        verify(second).skip(0);
+        verify(first).close();
+        verify(second).close();
+    }
+
+    @Test
+    public void limitIsApplied() {
+        DBCursor cursor = cursor(document(3));
+        when(collection.find(any(DBObject.class))).thenReturn(cursor);
+
+        MongoDBDocumentIterator iterator = new MongoDBDocumentIterator(collection, query, FIELD, false, 0, 1, 10);
+
+        assertThat(readAll(iterator), contains(document(3)));
+        verify(cursor).limit(1);
+        verify(collection, times(1)).find(any(DBObject.class));
+    }
+}
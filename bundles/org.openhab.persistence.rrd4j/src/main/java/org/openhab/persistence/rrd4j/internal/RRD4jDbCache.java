@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of open {@link RrdDb} handles, so that the database files do not have to be reopened for every
+ * store or query. Handles are reference counted: the least recently used handles are closed once more than
+ * the configured number of files are open and no one is using them anymore.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbCache {
+
+    /**
+     * Opens the database for the given name, returns null if there is no database and none can be created.
+     */
+    @FunctionalInterface
+    public interface Opener {
+        @Nullable
+        RrdDb open(String name) throws IOException;
+    }
+
+    private static class Entry {
+        final String name;
+        final RrdDb db;
+        int references;
+        boolean evicted;
+        final List<ClosedCallback> closedCallbacks = new ArrayList<>();
+
+        Entry(String name, RrdDb db) {
+            this.name = name;
+            this.db = db;
+        }
+    }
+
+    /**
+     * Runs a callback once a number of handles is closed.
+     */
+    private static class ClosedCallback {
+        final Runnable callback;
+        final AtomicInteger remaining = new AtomicInteger();
+
+        ClosedCallback(Runnable callback) {
+            this.callback = callback;
+        }
+
+        void closed() {
+            if (remaining.decrementAndGet() == 0) {
+                callback.run();
+            }
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbCache.class);
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<RrdDb, Entry> handles = new IdentityHashMap<>();
+    private volatile int maxOpen;
+
+    public RRD4jDbCache(int maxOpen) {
+        this.maxOpen = maxOpen;
+    }
+
+    public void setMaxOpen(int maxOpen) {
+        this.maxOpen = maxOpen;
+        List<RrdDb> toClose;
+        synchronized (this) {
+            toClose = evict();
+        }
+        toClose.forEach(this::close);
+    }
+
+    /**
+     * Returns the open database for the given name, opening it if necessary. Every handle returned has to be given
+     * back by {@link #release(RrdDb)} and must not be closed by the caller.
+     */
+    public @Nullable RrdDb acquire(String name, Opener opener) throws IOException {
+        synchronized (this) {
+            Entry entry = entries.get(name);
+            if (entry != null) {
+                entry.references++;
+                return entry.db;
+            }
+        }
+        // open outside of the lock, so that other databases can be used in the meantime
+        RrdDb db = opener.open(name);
+        if (db == null) {
+            return null;
+        }
+        List<RrdDb> toClose;
+        RrdDb result;
+        synchronized (this) {
+            Entry entry = entries.get(name);
+            if (entry != null) {
+                // opened concurrently by someone else
+                toClose = new ArrayList<>(List.of(db));
+            } else {
+                entry = new Entry(name, db);
+                entries.put(name, entry);
+                handles.put(db, entry);
+                toClose = evict();
+            }
+            entry.references++;
+            result = entry.db;
+        }
+        toClose.forEach(this::close);
+        return result;
+    }
+
+    /**
+     * Gives back a handle returned by {@link #acquire(String, Opener)}.
+     */
+    public void release(RrdDb db) {
+        Entry entry;
+        synchronized (this) {
+            entry = handles.get(db);
+            if (entry != null) {
+                if (--entry.references > 0 || !entry.evicted) {
+                    return;
+                }
+                handles.remove(db);
+            }
+        }
+        close(db);
+        if (entry != null) {
+            entry.closedCallbacks.forEach(ClosedCallback::closed);
+        }
+    }
+
+    /**
+     * Closes all handles that are not in use, handles in use are closed when they are released.
+     */
+    public void clear() {
+        clear(() -> {
+        });
+    }
+
+    /**
+     * Closes all handles like {@link #clear()} and runs the callback once all handles that are open now, including
+     * the ones still in use, are closed.
+     */
+    public void clear(Runnable onClosed) {
+        List<RrdDb> toClose = new ArrayList<>();
+        ClosedCallback closedCallback = new ClosedCallback(onClosed);
+        // counts the handles that are closed here, so that the callback does not run before they are closed
+        closedCallback.remaining.incrementAndGet();
+        synchronized (this) {
+            // also contains the evicted handles that are still in use
+            Iterator<Entry> it = handles.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                entry.evicted = true;
+                if (entry.references <= 0) {
+                    it.remove();
+                    toClose.add(entry.db);
+                } else {
+                    entry.closedCallbacks.add(closedCallback);
+                    closedCallback.remaining.incrementAndGet();
+                }
+            }
+            entries.clear();
+        }
+        toClose.forEach(this::close);
+        closedCallback.closed();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private List<RrdDb> evict() {
+        List<RrdDb> toClose = new ArrayList<>();
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxOpen && it.hasNext()) {
+            Entry entry = it.next();
+            it.remove();
+            entry.evicted = true;
+            if (entry.references <= 0) {
+                handles.remove(entry.db);
+                toClose.add(entry.db);
+            }
+            logger.trace("Evicted rrd4j database '{}' from cache", entry.name);
+        }
+        return toClose;
+    }
+
+    private void close(RrdDb db) {
+        try {
+            db.close();
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        }
+    }
+}
@@ -18,7 +18,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -28,7 +27,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.measure.Quantity;
@@ -64,17 +62,21 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceCronStrategy;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
+import org.openhab.persistence.rrd4j.internal.charts.RRD4jChartServlet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdNioBackendFactory;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,8 +91,8 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - remove TimerThread dependency
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
@@ -111,13 +113,31 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    private static final int DEFAULT_MAX_OPEN_FILES = 100;
+    private static final String MAX_OPEN_FILES = "maxOpenFiles";
+    private static final String SYNC_PERIOD = "syncPeriod";
+    private static final Set<String> OTHER_GLOBAL_KEYS = Set.of(RRD4jChartServlet.CHART_CACHE_TTL);
+    private static final int LOCK_STRIPES = 32;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final Map<String, Double> pendingValues = new ConcurrentHashMap<>();
+    // set on deactivation, deferred values are stored right away instead of being scheduled
+    private volatile boolean deactivating;
+
+    private final RRD4jDbCache dbCache = new RRD4jDbCache(DEFAULT_MAX_OPEN_FILES);
+
+    private volatile @Nullable RrdBackendFactory backendFactory;
+    private int syncPeriod;
 
     protected final ItemRegistry itemRegistry;
 
     @Activate
     public RRD4jPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
     }
 
     @Override
@@ -131,96 +151,133 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
-                try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
-                }
-            }
-            try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
+        Double value = getValue(item);
+        if (value != null) {
+            store(name, value);
+        }
+    }
 
-                Double value = null;
+    private Object getLock(String name) {
+        return locks[Math.floorMod(name.hashCode(), locks.length)];
+    }
 
-                if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
-                    NumberItem nItem = (NumberItem) item;
-                    QuantityType<?> qState = (QuantityType<?>) item.getState();
-                    Unit<? extends Quantity<?>> unit = nItem.getUnit();
-                    if (unit != null) {
-                        QuantityType<?> convertedState = qState.toUnit(unit);
-                        if (convertedState != null) {
-                            value = convertedState.doubleValue();
-                        } else {
-                            logger.warn(
-                                    "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
-                                    qState, unit);
-                        }
+    private void store(String name, double value) {
+        // only updates of the same database are serialized, different items are stored in parallel
+        synchronized (getLock(name)) {
+            RrdDb db = getDB(name);
+            if (db == null) {
+                return;
+            }
+            try {
+                long now = getCurrentTime();
+                if (now <= db.getLastUpdateTime()) {
+                    if (deactivating) {
+                        // the scheduler is about to be shut down, so the value is stored in the next time slot
+                        now = db.getLastUpdateTime() + 1;
                     } else {
-                        value = qState.doubleValue();
-                    }
-                } else {
-                    DecimalType state = item.getStateAs(DecimalType.class);
-                    if (state != null) {
-                        value = state.toBigDecimal().doubleValue();
+                        // rrd4j requires at least one second between two samples, so we only keep the latest value
+                        // and store it one second later
+                        if (pendingValues.put(name, value) == null) {
+                            scheduler.schedule(() -> storePending(name), 1, TimeUnit.SECONDS);
+                        }
+                        logger.trace("Deferred storing '{}' as value '{}' in rrd4j database", name, value);
+                        return;
                     }
                 }
-                if (value != null) {
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
+                ConsolFun function = getConsolidationFunction(db);
+                if (function != ConsolFun.AVERAGE) {
+                    try {
+                        // we store the last value again, so that the value change
+                        // in the database is not interpolated, but
+                        // happens right at this spot
+                        if (now - 1 > db.getLastUpdateTime()) {
+                            // only do it if there is not already a value
+                            double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                            if (!Double.isNaN(lastValue)) {
+                                Sample sample = db.createSample();
+                                sample.setTime(now - 1);
+                                sample.setValue(DATASOURCE_STATE, lastValue);
+                                sample.update();
+                                logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
+                            }
+                        }
+                    } catch (IOException e) {
+                        logger.debug("Error storing last value (again): {}", e.getMessage());
                     }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
                 }
-            } catch (IllegalArgumentException e) {
-                String message = e.getMessage();
-                if (message != null && message.contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
-                    }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+                Sample sample = db.createSample();
+                sample.setTime(now);
+                double storeValue = value;
+                if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
+                                                                                      // adjusted by stepsize
+                    storeValue = value * db.getRrdDef().getStep();
+                }
+                sample.setValue(DATASOURCE_STATE, storeValue);
+                sample.update();
+                // a deferred value is older than this one and must not overwrite it later
+                if (pendingValues.remove(name) != null) {
+                    logger.trace("Dropped deferred value of '{}', a newer value was stored", name);
                 }
+                logger.debug("Stored '{}' as value '{}' in rrd4j database", name, storeValue);
+            } catch (RejectedExecutionException e) {
+                // this happens if the system is shut down
+                logger.debug("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             } catch (Exception e) {
                 logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            } finally {
+                dbCache.release(db);
             }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        }
+    }
+
+    private void storePending(String name) {
+        // taken under the lock, so that a newer value cannot be stored in between
+        synchronized (getLock(name)) {
+            Double value = pendingValues.remove(name);
+            if (value != null) {
+                store(name, value);
+            }
+        }
+    }
+
+    /**
+     * @return the current time in seconds, the time of the stored samples
+     */
+    long getCurrentTime() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private @Nullable Double getValue(Item item) {
+        if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
+            NumberItem nItem = (NumberItem) item;
+            QuantityType<?> qState = (QuantityType<?>) item.getState();
+            Unit<? extends Quantity<?>> unit = nItem.getUnit();
+            if (unit != null) {
+                QuantityType<?> convertedState = qState.toUnit(unit);
+                if (convertedState != null) {
+                    return convertedState.doubleValue();
+                } else {
+                    logger.warn(
+                            "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
+                            qState, unit);
+                    return null;
+                }
+            } else {
+                return qState.doubleValue();
+            }
+        } else {
+            DecimalType state = item.getStateAs(DecimalType.class);
+            if (state != null) {
+                return state.toBigDecimal().doubleValue();
             }
         }
+        return null;
     }
 
     @Override
@@ -305,6 +362,8 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         } catch (IOException e) {
             logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
             return List.of();
+        } finally {
+            dbCache.release(db);
         }
     }
 
@@ -313,13 +372,73 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    /**
+     * Returns the database for the given alias from the cache of open databases, opening or creating it if necessary.
+     * The returned database has to be given back by {@link RRD4jDbCache#release(RrdDb)} instead of closing it.
+     */
+    protected @Nullable RrdDb getDB(String alias) {
+        try {
+            return dbCache.acquire(alias, this::openDB);
+        } catch (IOException e) {
+            logger.error("Could not open rrd4j database for item '{}': {}", alias, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetches the values of an existing database from the cache of open databases, e.g. for a chart.
+     *
+     * @param alias the name of the database
+     * @param start the start time in seconds
+     * @param end the end time in seconds
+     * @param resolution the preferred resolution in seconds
+     * @return the values, null if there is no database
+     */
+    public @Nullable FetchData fetchData(String alias, long start, long end, long resolution) throws IOException {
+        if (!new File(DB_FOLDER + File.separator + alias + ".rrd").exists()) {
+            return null;
+        }
+        RrdDb db = getDB(alias);
+        if (db == null) {
+            return null;
+        }
+        try {
+            return db.createFetchRequest(getConsolidationFunction(db), start, end, resolution).fetchData();
+        } finally {
+            dbCache.release(db);
+        }
+    }
+
+    /**
+     * Returns the consolidation function of the first archive of an existing database.
+     *
+     * @param alias the name of the database
+     * @return the consolidation function, {@link ConsolFun#MAX} if there is no database
+     */
+    public ConsolFun getConsolidationFunction(String alias) {
+        if (!new File(DB_FOLDER + File.separator + alias + ".rrd").exists()) {
+            return ConsolFun.MAX;
+        }
+        RrdDb db = getDB(alias);
+        if (db == null) {
+            return ConsolFun.MAX;
+        }
+        try {
+            return getConsolidationFunction(db);
+        } finally {
+            dbCache.release(db);
+        }
+    }
+
+    private @Nullable RrdDb openDB(String alias) {
         RrdDb db = null;
+        RrdBackendFactory factory = backendFactory;
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
         try {
             if (file.exists()) {
                 // recreate the RrdDb instance from the file
-                db = new RrdDb(file.getAbsolutePath());
+                db = factory == null ? new RrdDb(file.getAbsolutePath())
+                        : new RrdDb(file.getAbsolutePath(), factory);
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
@@ -328,7 +447,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 RrdDef rrdDef = getRrdDef(alias, file);
                 if (rrdDef != null) {
                     // create a new database file
-                    db = new RrdDb(rrdDef);
+                    db = factory == null ? new RrdDb(rrdDef) : new RrdDb(rrdDef, factory);
                 } else {
                     logger.debug(
                             "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
@@ -443,10 +562,26 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         modified(config);
     }
 
+    @Deactivate
+    protected void deactivate() {
+        // store the values that are still waiting for their time slot before the databases are closed, without
+        // deferring them again to the scheduler that is shut down below
+        deactivating = true;
+        pendingValues.keySet().forEach(this::storePending);
+        // the sync threads of the backend are stopped once its databases are closed
+        RrdBackendFactory factory = backendFactory;
+        backendFactory = null;
+        syncPeriod = 0;
+        dbCache.clear(() -> close(factory));
+        scheduler.shutdownNow();
+    }
+
     @Modified
     protected void modified(final Map<String, Object> config) {
         // clean existing definitions
         rrdDefs.clear();
+        int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+        setSyncPeriod(parseSyncPeriod(config.get(SYNC_PERIOD)));
 
         // add default configurations
 
@@ -489,6 +624,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
         if (config.isEmpty()) {
             logger.debug("using default configuration only");
+            dbCache.setMaxOpen(maxOpenFiles);
             return;
         }
 
@@ -501,6 +637,15 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (key.equals(MAX_OPEN_FILES)) {
+                maxOpenFiles = parseMaxOpenFiles(config.get(key), maxOpenFiles);
+                continue;
+            }
+
+            if (key.equals(SYNC_PERIOD) || OTHER_GLOBAL_KEYS.contains(key)) {
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -542,6 +687,9 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             }
         }
 
+        dbCache.setMaxOpen(maxOpenFiles);
+        logger.debug("Keeping at most {} rrd4j databases open", maxOpenFiles);
+
         for (RrdDefConfig rrdDef : rrdDefs.values()) {
             if (rrdDef != null) {
                 if (rrdDef.isValid()) {
@@ -554,6 +702,66 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * @param syncPeriod the seconds between writing the changes of the memory mapped files to disk, 0 for the default
+     *            of rrd4j
+     */
+    private void setSyncPeriod(int syncPeriod) {
+        if (syncPeriod == this.syncPeriod) {
+            return;
+        }
+        this.syncPeriod = syncPeriod;
+        RrdBackendFactory oldFactory = backendFactory;
+        backendFactory = syncPeriod > 0 ? new RrdNioBackendFactory(syncPeriod) : null;
+        // databases opened with the previous backend are closed once they are no longer used, the sync threads of
+        // the previous backend are stopped after that
+        dbCache.clear(() -> close(oldFactory));
+        logger.debug("Writing rrd4j databases to disk every {} seconds",
+                syncPeriod > 0 ? String.valueOf(syncPeriod) : "default");
+    }
+
+    /**
+     * Closes a backend factory created by this service, the default factory of rrd4j is shared and stays open.
+     */
+    private void close(@Nullable RrdBackendFactory factory) {
+        if (factory != null) {
+            try {
+                factory.close();
+            } catch (Exception e) {
+                logger.debug("Error closing rrd4j backend: {}", e.getMessage());
+            }
+        }
+    }
+
+    private int parseSyncPeriod(@Nullable Object value) {
+        if (value == null || value.toString().isBlank()) {
+            return 0;
+        }
+        try {
+            int syncPeriod = Integer.parseInt(value.toString().trim());
+            if (syncPeriod > 0) {
+                return syncPeriod;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        logger.warn("Ignoring illegal configuration: {} = {}", SYNC_PERIOD, value);
+        return 0;
+    }
+
+    private int parseMaxOpenFiles(@Nullable Object value, int defaultValue) {
+        try {
+            int maxOpenFiles = Integer.parseInt(String.valueOf(value).trim());
+            if (maxOpenFiles > 0) {
+                return maxOpenFiles;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        logger.warn("Ignoring illegal configuration: {} = {}", MAX_OPEN_FILES, value);
+        return defaultValue;
+    }
+
     private class RrdArchiveDef {
         public @Nullable ConsolFun fcn;
         public double xff;
@@ -15,7 +15,6 @@ package org.openhab.persistence.rrd4j.internal.charts;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
@@ -35,12 +34,13 @@ import org.openhab.core.ui.items.ItemUIRegistry;
 import org.openhab.persistence.rrd4j.internal.RRD4jPersistenceService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.FetchData;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
 import org.slf4j.Logger;
@@ -62,7 +62,7 @@ import org.slf4j.LoggerFactory;
  * @author Jan N. Klug - a few improvements
  *
  */
-@Component(service = ChartProvider.class)
+@Component(service = ChartProvider.class, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jChartServlet implements Servlet, ChartProvider {
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jChartServlet.class);
@@ -70,6 +70,11 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     /** the URI of this servlet */
     public static final String SERVLET_NAME = "/rrdchart.png";
 
+    /** the configuration key for the number of seconds a rendered chart is reused */
+    public static final String CHART_CACHE_TTL = "chartCacheTtl";
+
+    private static final int CHART_CACHE_SIZE = 50;
+
     protected static final Color[] LINECOLORS = new Color[] { Color.RED, Color.GREEN, Color.BLUE, Color.MAGENTA,
             Color.ORANGE, Color.CYAN, Color.PINK, Color.DARK_GRAY, Color.YELLOW };
     protected static final Color[] AREACOLORS = new Color[] { new Color(255, 0, 0, 30), new Color(0, 255, 0, 30),
@@ -100,8 +105,33 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Reference
     protected ItemUIRegistry itemUIRegistry;
 
+    @Reference
+    protected RRD4jPersistenceService persistenceService;
+
+    private final Map<String, CachedChart> chartCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedChart> eldest) {
+            return size() > CHART_CACHE_SIZE;
+        }
+    };
+
+    private volatile long chartCacheTtl;
+
+    private static class CachedChart {
+        final BufferedImage image;
+        final long expires;
+
+        CachedChart(BufferedImage image, long expires) {
+            this.image = image;
+            this.expires = expires;
+        }
+    }
+
     @Activate
-    protected void activate() {
+    protected void activate(final Map<String, Object> config) {
+        modified(config);
         try {
             logger.debug("Starting up rrd chart servlet at {}", SERVLET_NAME);
             httpService.registerServlet(SERVLET_NAME, this, new Hashtable<>(), httpService.createDefaultHttpContext());
@@ -112,9 +142,29 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         }
     }
 
+    @Modified
+    protected void modified(final Map<String, Object> config) {
+        long ttl = 0;
+        Object value = config.get(CHART_CACHE_TTL);
+        if (value != null) {
+            try {
+                ttl = Math.max(0, Long.parseLong(value.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal configuration: {} = {}", CHART_CACHE_TTL, value);
+            }
+        }
+        chartCacheTtl = ttl * 1000;
+        synchronized (chartCache) {
+            chartCache.clear();
+        }
+    }
+
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        synchronized (chartCache) {
+            chartCache.clear();
+        }
     }
 
     @Override
@@ -161,29 +211,30 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
      * @param graphDef the graph definition to fill
      * @param item the item to add a line for
      * @param counter defines the number of the datasource and is used to determine the line color
+     * @param start the start time of the chart in seconds
+     * @param end the end time of the chart in seconds
+     * @param resolution the preferred resolution of the values in seconds
      */
-    protected void addLine(RrdGraphDef graphDef, Item item, int counter) {
+    protected void addLine(RrdGraphDef graphDef, Item item, int counter, long start, long end, long resolution)
+            throws IOException {
+        // read the values from the databases kept open by the persistence service instead of opening the files again
+        FetchData fetchData = persistenceService.fetchData(item.getName(), start, end, resolution);
+        if (fetchData == null) {
+            logger.debug("No rrd4j database found for item '{}', skipping it in the chart", item.getName());
+            return;
+        }
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
-        String rrdName = RRD4jPersistenceService.DB_FOLDER + File.separator + item.getName() + ".rrd";
-        ConsolFun consolFun;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
-        try {
-            RrdDb db = new RrdDb(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
-        } catch (IOException e) {
-            consolFun = ConsolFun.MAX;
-        }
         if (item instanceof NumberItem) {
             // we only draw a line
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), "state", fetchData);
             graphDef.line(Integer.toString(counter), color, label, 2);
         } else {
             // we draw a line and fill the area beneath it with a transparent color
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), "state", fetchData);
             Color areaColor = AREACOLORS[counter % LINECOLORS.length];
 
             graphDef.area(Integer.toString(counter), areaColor);
@@ -220,54 +271,76 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Override
     public BufferedImage createChart(String service, String theme, Date startTime, Date endTime, int height, int width,
             String items, String groups, Integer dpi, Boolean legend) throws ItemNotFoundException {
-        RrdGraphDef graphDef = new RrdGraphDef();
-
         long period = (startTime.getTime() - endTime.getTime()) / 1000;
 
+        long ttl = chartCacheTtl;
+        String cacheKey = items + "|" + groups + "|" + period + "|" + width + "x" + height;
+        if (ttl > 0) {
+            synchronized (chartCache) {
+                CachedChart cached = chartCache.get(cacheKey);
+                if (cached != null && cached.expires > System.currentTimeMillis()) {
+                    logger.trace("Using cached chart for {}", cacheKey);
+                    return cached.image;
+                }
+            }
+        }
+
+        long end = System.currentTimeMillis() / 1000;
+        long start = end + period;
+        long resolution = Math.max(1, (end - start) / Math.max(1, width));
+
+        RrdGraphDef graphDef = new RrdGraphDef();
+
         graphDef.setWidth(width);
         graphDef.setHeight(height);
         graphDef.setAntiAliasing(true);
         graphDef.setImageFormat("PNG");
-        graphDef.setStartTime(period);
+        graphDef.setTimeSpan(start, end);
         graphDef.setTextAntiAliasing(true);
         graphDef.setLargeFont(new Font("SansSerif", Font.PLAIN, 15));
         graphDef.setSmallFont(new Font("SansSerif", Font.PLAIN, 11));
 
         int seriesCounter = 0;
 
-        // Loop through all the items
-        if (items != null) {
-            String[] itemNames = items.split(",");
-            for (String itemName : itemNames) {
-                Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+        RrdGraph graph;
+        try {
+            // Loop through all the items
+            if (items != null) {
+                String[] itemNames = items.split(",");
+                for (String itemName : itemNames) {
+                    Item item = itemUIRegistry.getItem(itemName);
+                    addLine(graphDef, item, seriesCounter++, start, end, resolution);
+                }
             }
-        }
 
-        // Loop through all the groups and add each item from each group
-        if (groups != null) {
-            String[] groupNames = groups.split(",");
-            for (String groupName : groupNames) {
-                Item item = itemUIRegistry.getItem(groupName);
-                if (item instanceof GroupItem) {
-                    GroupItem groupItem = (GroupItem) item;
-                    for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
+            // Loop through all the groups and add each item from each group
+            if (groups != null) {
+                String[] groupNames = groups.split(",");
+                for (String groupName : groupNames) {
+                    Item item = itemUIRegistry.getItem(groupName);
+                    if (item instanceof GroupItem) {
+                        GroupItem groupItem = (GroupItem) item;
+                        for (Item member : groupItem.getMembers()) {
+                            addLine(graphDef, member, seriesCounter++, start, end, resolution);
+                        }
+                    } else {
+                        throw new ItemNotFoundException(
+                                "Item '" + item.getName() + "' defined in groups is not a group.");
                     }
-                } else {
-                    throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
                 }
             }
-        }
 
-        // Write the chart as a PNG image
-        RrdGraph graph;
-        try {
+            // Write the chart as a PNG image
             graph = new RrdGraph(graphDef);
             BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
                     graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
             graph.render(bi.getGraphics());
 
+            if (ttl > 0) {
+                synchronized (chartCache) {
+                    chartCache.put(cacheKey, new CachedChart(bi, System.currentTimeMillis() + ttl));
+                }
+            }
             return bi;
         } catch (IOException e) {
             logger.error("Error generating graph.", e);
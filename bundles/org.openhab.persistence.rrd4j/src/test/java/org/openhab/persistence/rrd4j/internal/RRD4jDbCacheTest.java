@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdMemoryBackendFactory;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RRD4jDbCacheTest {
+
+    private final RrdMemoryBackendFactory factory = new RrdMemoryBackendFactory();
+    private final RRD4jDbCache cache = new RRD4jDbCache(2);
+    private final AtomicInteger closedCallbacks = new AtomicInteger();
+
+    private @Nullable RrdDb open(String name) throws IOException {
+        RrdDef def = new RrdDef(name, 10);
+        def.addDatasource("state", DsType.GAUGE, 600, Double.NaN, Double.NaN);
+        def.addArchive(ConsolFun.AVERAGE, 0.5, 1, 360);
+        return new RrdDb(def, factory);
+    }
+
+    private RrdDb acquire(String name) throws IOException {
+        RrdDb db = cache.acquire(name, this::open);
+        assertThat(db, is(notNullValue()));
+        return db;
+    }
+
+    @Test
+    public void handlesAreReused() throws IOException {
+        RrdDb db = acquire("a");
+        cache.release(db);
+
+        assertThat(acquire("a"), is(sameInstance(db)));
+        assertThat(db.isClosed(), is(false));
+    }
+
+    @Test
+    public void leastRecentlyUsedHandleIsClosed() throws IOException {
+        RrdDb a = acquire("a");
+        cache.release(a);
+        cache.release(acquire("b"));
+        cache.release(acquire("c"));
+
+        assertThat(cache.size(), is(2));
+        assertThat(a.isClosed(), is(true));
+    }
+
+    @Test
+    public void callbackRunsAfterUnusedHandlesAreClosed() throws IOException {
+        RrdDb db = acquire("a");
+        cache.release(db);
+
+        cache.clear(closedCallbacks::incrementAndGet);
+
+        assertThat(db.isClosed(), is(true));
+        assertThat(closedCallbacks.get(), is(1));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void callbackWaitsForHandlesInUse() throws IOException {
+        // evicted when "c" is opened, but still in use
+        RrdDb evicted = acquire("a");
+        RrdDb b = acquire("b");
+        RrdDb c = acquire("c");
+
+        cache.clear(closedCallbacks::incrementAndGet);
+
+        assertThat(closedCallbacks.get(), is(0));
+        cache.release(evicted);
+        cache.release(b);
+        assertThat(evicted.isClosed(), is(true));
+        assertThat(closedCallbacks.get(), is(0));
+        assertThat(c.isClosed(), is(false));
+        cache.release(c);
+        assertThat(c.isClosed(), is(true));
+        assertThat(closedCallbacks.get(), is(1));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.ItemNotFoundException;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class RRD4jPersistenceServiceTest {
+
+    private static final String ITEM_NAME = "test";
+
+    private @Mock ItemRegistry itemRegistry;
+    private NumberItem item = new NumberItem(ITEM_NAME);
+    private TestRRD4jPersistenceService service;
+
+    /**
+     * Uses a clock that is set by the test instead of the system time.
+     */
+    private static class TestRRD4jPersistenceService extends RRD4jPersistenceService {
+        // later than the start time of new databases
+        long currentTime = System.currentTimeMillis() / 1000 + 10;
+
+        TestRRD4jPersistenceService(ItemRegistry itemRegistry) {
+            super(itemRegistry);
+        }
+
+        @Override
+        long getCurrentTime() {
+            return currentTime;
+        }
+    }
+
+    @BeforeAll
+    public static void setUserData(@TempDir Path userData) {
+        System.setProperty("openhab.userdata", userData.toString());
+    }
+
+    @BeforeEach
+    public void setUp() throws ItemNotFoundException {
+        when(itemRegistry.getItem(ITEM_NAME)).thenReturn(item);
+        service = new TestRRD4jPersistenceService(itemRegistry);
+        service.activate(Map.of());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.deactivate();
+        Path.of(RRD4jPersistenceService.DB_FOLDER, ITEM_NAME + ".rrd").toFile().delete();
+    }
+
+    private void store(double value) {
+        item.setState(new DecimalType(value));
+        service.store(item);
+    }
+
+    private List<HistoricItem> queryLast() {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(ITEM_NAME);
+        filter.setOrdering(Ordering.DESCENDING);
+        filter.setPageSize(1);
+        List<HistoricItem> result = new ArrayList<>();
+        service.query(filter).forEach(result::add);
+        return result;
+    }
+
+    @Test
+    public void deferredValueIsStoredLater() {
+        store(1);
+        store(2);
+        service.currentTime++;
+        // stores the deferred values like the scheduled job
+        service.deactivate();
+
+        List<HistoricItem> result = queryLast();
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getState(), is(new DecimalType(2)));
+    }
+
+    @Test
+    public void deferredValueIsStoredOnDeactivationWithinTheSameSecond() {
+        store(1);
+        store(2);
+        // the time slot of the deferred value is not reached yet
+        service.deactivate();
+
+        List<HistoricItem> result = queryLast();
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getState(), is(new DecimalType(2)));
+    }
+
+    @Test
+    public void deferredValueDoesNotOverwriteNewerValue() {
+        store(1);
+        store(2);
+        service.currentTime++;
+        store(3);
+        service.currentTime++;
+        service.deactivate();
+
+        List<HistoricItem> result = queryLast();
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getState(), is(new DecimalType(3)));
+    }
+}
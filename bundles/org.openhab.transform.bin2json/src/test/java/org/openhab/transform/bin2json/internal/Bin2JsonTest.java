@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class Bin2JsonTest {
+
+    @Test
+    public void testSimpleFields() throws ConversionException {
+        assertEquals("{\"a\":3,\"b\":-6,\"c\":255}", new Bin2Json("byte a; byte b; ubyte c;").convert("03FAFF"));
+    }
+
+    @Test
+    public void testNestedStruct() throws ConversionException {
+        assertEquals("{\"a\":1,\"inner\":{\"b\":255,\"c\":258},\"d\":5}",
+                new Bin2Json("byte a; inner { ubyte b; ushort c; } byte d;").convert("01FF010205"));
+    }
+
+    @Test
+    public void testArrays() throws ConversionException {
+        assertEquals("{\"a\":[1,-1],\"b\":[1,255],\"c\":[true,false]}",
+                new Bin2Json("byte [2] a; ubyte [2] b; bool [2] c;").convert("01FF01FF0100"));
+    }
+
+    @Test
+    public void testStructArray() throws ConversionException {
+        assertEquals("{\"items\":[{\"items\":{\"x\":1}},{\"items\":{\"x\":2}}]}",
+                new Bin2Json("items [2] { byte x; }").convert("0102"));
+    }
+
+    @Test
+    public void testUnnamedFieldsKeepLastValue() throws ConversionException {
+        // like a JsonObject, a repeated name is kept at its first position with the value of the last field
+        assertEquals("{\"nonamed\":4,\"inner\":{\"nonamed\":2,\"b\":3}}",
+                new Bin2Json("byte; inner { byte; byte b; } byte;").convert("01020304"));
+    }
+
+    @Test
+    public void testConverterIsReusable() throws ConversionException {
+        Bin2Json converter = new Bin2Json("byte a;");
+
+        assertEquals("{\"a\":1}", converter.convert("01"));
+        assertEquals("{\"a\":2}", converter.convert(new byte[] { 2 }));
+        assertEquals("{\"a\":3}", converter.convert(new ByteArrayInputStream(new byte[] { 3 })));
+    }
+
+    @Test
+    public void testIllegalRule() {
+        assertThrows(ConversionException.class, () -> new Bin2Json("byte [ a;"));
+    }
+}
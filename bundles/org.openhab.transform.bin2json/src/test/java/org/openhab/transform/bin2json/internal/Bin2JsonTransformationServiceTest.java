@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.transform.TransformationException;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class Bin2JsonTransformationServiceTest {
+
+    private @NonNullByDefault({}) Bin2JsonTransformationService processor;
+
+    @BeforeEach
+    public void init() {
+        processor = new Bin2JsonTransformationService();
+    }
+
+    @Test
+    public void testTransform() throws TransformationException {
+        assertEquals("{\"a\":3,\"b\":-6,\"c\":255}", processor.transform("byte a; byte b; ubyte c;", "03FAFF"));
+    }
+
+    @Test
+    public void testTransformIllegalRule() {
+        assertThrows(TransformationException.class, () -> processor.transform("byte [ a;", "03"));
+    }
+
+    @Test
+    public void testParserIsPreparedOnce() throws ConversionException, TransformationException {
+        Bin2Json converter = processor.getConverter("byte a;");
+        processor.transform("byte a;", "01");
+        processor.transform("ubyte b;", "02");
+
+        assertSame(converter, processor.getConverter("byte a;"));
+        assertNotSame(converter, processor.getConverter("ubyte b;"));
+    }
+
+    @Test
+    public void testIllegalRuleIsNotCached() {
+        assertThrows(ConversionException.class, () -> processor.getConverter("byte [ a;"));
+        assertThrows(ConversionException.class, () -> processor.getConverter("byte [ a;"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedParserIsEvicted() throws ConversionException {
+        Bin2Json first = processor.getConverter("byte a0;");
+        Bin2Json second = processor.getConverter("byte a1;");
+        for (int i = 2; i <= 64; i++) {
+            // keeps the second parser recently used
+            processor.getConverter("byte a1;");
+            processor.getConverter("byte a" + i + ";");
+        }
+
+        assertSame(second, processor.getConverter("byte a1;"));
+        assertNotSame(first, processor.getConverter("byte a0;"));
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.exec.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of long-running processes of one command line, which transform one line read from their standard input to
+ * one line written to their standard output.
+ *
+ * At most {@code maxProcesses} processes are started, they are started when needed. A process that exited, did not
+ * answer in time or closed its output is stopped and replaced by a new one on the next request.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class ExecCoProcessPool {
+
+    /** marks the end of the output of a process */
+    private static final String END_OF_OUTPUT = new String();
+
+    private final Logger logger = LoggerFactory.getLogger(ExecCoProcessPool.class);
+
+    private final String commandLine;
+    private final Duration timeout;
+
+    /** a permit for each process that may be used, idle processes do not hold a permit */
+    private final Semaphore permits;
+    private final BlockingQueue<CoProcess> idle = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * @param commandLine the command line, split at spaces like for single executions
+     * @param maxProcesses the maximum number of processes running at the same time
+     * @param timeout the time to wait for a free process and for the answer of a process
+     */
+    public ExecCoProcessPool(String commandLine, int maxProcesses, Duration timeout) {
+        this.commandLine = commandLine;
+        this.permits = new Semaphore(maxProcesses);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the input as one line to a process and reads its answer.
+     *
+     * @param input the input, must not contain line breaks
+     * @return the answer line, or null if there is no answer
+     */
+    public @Nullable String execute(String input) {
+        if (input.indexOf('\n') >= 0 || input.indexOf('\r') >= 0) {
+            logger.warn("Cannot send input with line breaks to co-process '{}'", commandLine);
+            return null;
+        }
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("No co-process of '{}' became available within {} ms", commandLine, timeout.toMillis());
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        CoProcess process = null;
+        try {
+            process = borrow();
+            String result = process.request(input);
+            release(process);
+            process = null;
+            return result;
+        } catch (IOException | TimeoutException e) {
+            logger.warn("Co-process '{}' failed and is restarted with the next request: {}", commandLine,
+                    e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * @return an idle running process, or a new process if there is none
+     */
+    private CoProcess borrow() throws IOException {
+        if (closed) {
+            throw new IOException("The co-processes are stopped");
+        }
+        CoProcess process;
+        while ((process = idle.poll()) != null) {
+            if (process.isAlive()) {
+                return process;
+            }
+            logger.debug("Co-process '{}' exited with {}", commandLine, process.exitValue());
+            process.destroy();
+        }
+        logger.debug("Starting co-process '{}'", commandLine);
+        return new CoProcess(new ProcessBuilder(commandLine.split(" ")).redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start());
+    }
+
+    private void release(CoProcess process) {
+        idle.add(process);
+        if (closed && idle.remove(process)) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Stops all processes. Processes that are in use are stopped when their request is finished.
+     */
+    public void close() {
+        closed = true;
+        CoProcess process;
+        while ((process = idle.poll()) != null) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * A running process. Its output is read by its own thread, so waiting for an answer can time out.
+     */
+    private class CoProcess {
+        private final Process process;
+        private final BufferedWriter writer;
+        private final BlockingQueue<String> answers = new LinkedBlockingQueue<>();
+
+        CoProcess(Process process) {
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Thread thread = new Thread(this::readAnswers, "OH-exec-coprocess-" + process.pid());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void readAnswers() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    answers.add(line);
+                }
+            } catch (IOException e) {
+                // the process was stopped
+            }
+            answers.add(END_OF_OUTPUT);
+        }
+
+        String request(String input) throws IOException, InterruptedException, TimeoutException {
+            writer.write(input);
+            writer.newLine();
+            writer.flush();
+            String result = answers.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (result == null) {
+                throw new TimeoutException("No answer within " + timeout.toMillis() + " ms");
+            }
+            if (result == END_OF_OUTPUT) {
+                throw new IOException("The co-process closed its output");
+            }
+            return result;
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        int exitValue() {
+            return process.exitValue();
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -13,6 +13,8 @@
 package org.openhab.transform.exec.internal;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -21,6 +23,7 @@ import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,19 +32,56 @@ import org.slf4j.LoggerFactory;
  * The implementation of {@link TransformationService} which transforms the
  * input by command line.
  *
+ * Command lines starting with {@value #CO_PROCESS_PREFIX} are started once and kept running, each input is written as
+ * a line to their standard input and the answer is read as a line from their standard output.
+ *
  * @author Pauli Anttila - Initial contribution
  * @author Jan N. Klug - added command whitelist service
  */
 @NonNullByDefault
 @Component(property = { "openhab.transform=EXEC" })
 public class ExecTransformationService implements TransformationService {
+    public static final String CO_PROCESS_PREFIX = "coprocess:";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_CO_PROCESSES = 4;
+
     private final Logger logger = LoggerFactory.getLogger(ExecTransformationService.class);
     private final ExecTransformationWhitelistWatchService execTransformationWhitelistWatchService;
+    private final Map<String, ExecCoProcessPool> coProcessPools = new ConcurrentHashMap<>();
+    private final Runnable whitelistChangeListener = this::closeRemovedCoProcesses;
 
     @Activate
     public ExecTransformationService(
             @Reference ExecTransformationWhitelistWatchService execTransformationWhitelistWatchService) {
         this.execTransformationWhitelistWatchService = execTransformationWhitelistWatchService;
+        execTransformationWhitelistWatchService.addWhitelistChangeListener(whitelistChangeListener);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        execTransformationWhitelistWatchService.removeWhitelistChangeListener(whitelistChangeListener);
+        coProcessPools.values().forEach(ExecCoProcessPool::close);
+        coProcessPools.clear();
+    }
+
+    /**
+     * Stops the processes of the commands that were removed from the whitelist.
+     */
+    private void closeRemovedCoProcesses() {
+        for (String commandLine : coProcessPools.keySet()) {
+            if (!execTransformationWhitelistWatchService.isWhitelisted(commandLine)) {
+                closeCoProcesses(commandLine);
+            }
+        }
+    }
+
+    private void closeCoProcesses(String commandLine) {
+        ExecCoProcessPool pool = coProcessPools.remove(commandLine);
+        if (pool != null) {
+            logger.debug("Stopping the co-processes of '{}'", commandLine);
+            pool.close();
+        }
     }
 
     /**
@@ -57,6 +97,10 @@ public class ExecTransformationService implements TransformationService {
             throw new TransformationException("the given parameters 'commandLine' and 'source' must not be null");
         }
 
+        if (commandLine.startsWith(CO_PROCESS_PREFIX)) {
+            return transformByCoProcess(commandLine.substring(CO_PROCESS_PREFIX.length()).trim(), source);
+        }
+
         if (!execTransformationWhitelistWatchService.isWhitelisted(commandLine)) {
             logger.warn("Tried to execute '{}', but it is not contained in whitelist.", commandLine);
             return null;
@@ -66,10 +110,28 @@ public class ExecTransformationService implements TransformationService {
         long startTime = System.currentTimeMillis();
 
         String formattedCommandLine = String.format(commandLine, source);
-        String result = ExecUtil.executeCommandLineAndWaitResponse(Duration.ofSeconds(5),
-                formattedCommandLine.split(" "));
+        String result = ExecUtil.executeCommandLineAndWaitResponse(TIMEOUT, formattedCommandLine.split(" "));
         logger.trace("command line execution elapsed {} ms", System.currentTimeMillis() - startTime);
 
         return result;
     }
+
+    private @Nullable String transformByCoProcess(String commandLine, String source) {
+        if (!execTransformationWhitelistWatchService.isWhitelisted(commandLine)) {
+            logger.warn("Tried to execute '{}', but it is not contained in whitelist.", commandLine);
+            // in case the whitelist change has not been processed yet
+            closeCoProcesses(commandLine);
+            return null;
+        }
+        logger.debug("about to transform '{}' by the co-process '{}'", source, commandLine);
+
+        long startTime = System.currentTimeMillis();
+
+        String result = coProcessPools
+                .computeIfAbsent(commandLine, c -> new ExecCoProcessPool(c, MAX_CO_PROCESSES, TIMEOUT))
+                .execute(source);
+        logger.trace("co-process execution elapsed {} ms", System.currentTimeMillis() - startTime);
+
+        return result;
+    }
 }
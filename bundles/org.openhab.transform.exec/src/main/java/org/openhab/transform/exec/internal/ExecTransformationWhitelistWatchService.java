@@ -22,7 +22,9 @@ import java.nio.file.Paths;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchEvent.Kind;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -45,7 +47,8 @@ public class ExecTransformationWhitelistWatchService extends AbstractWatchServic
     private static final String COMMAND_WHITELIST_FILE = "exec.whitelist";
 
     private final Logger logger = LoggerFactory.getLogger(ExecTransformationWhitelistWatchService.class);
-    private final Set<String> commandWhitelist = new HashSet<>();
+    private volatile Set<String> commandWhitelist = Set.of();
+    private final List<Runnable> whitelistChangeListeners = new CopyOnWriteArrayList<>();
 
     @Activate
     public ExecTransformationWhitelistWatchService() {
@@ -66,16 +69,36 @@ public class ExecTransformationWhitelistWatchService extends AbstractWatchServic
     @Override
     protected void processWatchEvent(@Nullable WatchEvent<?> event, @Nullable Kind<?> kind, @Nullable Path path) {
         if (path != null && path.endsWith(COMMAND_WHITELIST_FILE)) {
-            commandWhitelist.clear();
+            Set<String> whitelist = new HashSet<>();
             try {
-                Files.lines(path).filter(line -> !line.trim().startsWith("#")).forEach(commandWhitelist::add);
-                logger.debug("Updated command whitelist: {}", commandWhitelist);
+                Files.lines(path).filter(line -> !line.trim().startsWith("#")).forEach(whitelist::add);
+                logger.debug("Updated command whitelist: {}", whitelist);
             } catch (IOException e) {
                 logger.warn("Cannot read whitelist file, exec transformations won't be processed: {}", e.getMessage());
             }
+            commandWhitelist = whitelist;
+            whitelistChangeListeners.forEach(Runnable::run);
         }
     }
 
+    /**
+     * Adds a listener that is called after the whitelist has been changed
+     *
+     * @param listener the listener to add
+     */
+    public void addWhitelistChangeListener(Runnable listener) {
+        whitelistChangeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addWhitelistChangeListener(Runnable)}
+     *
+     * @param listener the listener to remove
+     */
+    public void removeWhitelistChangeListener(Runnable listener) {
+        whitelistChangeListeners.remove(listener);
+    }
+
     /**
      * Check if a command is whitelisted
      *
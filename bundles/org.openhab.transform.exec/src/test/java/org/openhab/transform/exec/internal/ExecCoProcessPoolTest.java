@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.exec.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link ExecCoProcessPool} with a shell script that answers each line with its process id.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@DisabledOnOs(OS.WINDOWS)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class ExecCoProcessPoolTest {
+
+    static final String SCRIPT = "#!/bin/sh\n" //
+            + "while read -r line; do\n" //
+            + "  case \"$line\" in\n" //
+            + "    silent) ;;\n" //
+            + "    exit) exit 1 ;;\n" //
+            + "    *) echo \"$$:$line\" ;;\n" //
+            + "  esac\n" //
+            + "done\n";
+
+    private @TempDir @NonNullByDefault({}) Path tempDir;
+    private @NonNullByDefault({}) ExecCoProcessPool pool;
+
+    /**
+     * @return the path of an executable copy of {@link #SCRIPT}
+     */
+    static String createScript(Path dir) throws IOException {
+        Path script = dir.resolve("coprocess.sh");
+        Files.writeString(script, SCRIPT);
+        script.toFile().setExecutable(true);
+        return script.toString();
+    }
+
+    /**
+     * @return the process id from an answer of {@link #SCRIPT}
+     */
+    static long getPid(@Nullable String answer) {
+        if (answer == null) {
+            throw new AssertionError("No answer from the co-process");
+        }
+        return Long.parseLong(answer.substring(0, answer.indexOf(':')));
+    }
+
+    /**
+     * Waits until the process has exited.
+     */
+    static void assertExited(long pid) throws InterruptedException, ExecutionException {
+        ProcessHandle handle = ProcessHandle.of(pid).orElse(null);
+        if (handle != null) {
+            try {
+                handle.onExit().get(5, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                throw new AssertionError("Process " + pid + " is still running");
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        pool = new ExecCoProcessPool(createScript(tempDir), 2, Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void processIsReusedForSubsequentCalls() {
+        String first = pool.execute("a");
+        String second = pool.execute("b");
+
+        assertThat(first, endsWith(":a"));
+        assertThat(second, endsWith(":b"));
+        assertThat(getPid(second), is(getPid(first)));
+    }
+
+    @Test
+    public void processIsRestartedAfterResponseTimeout() throws InterruptedException, ExecutionException {
+        long pid = getPid(pool.execute("a"));
+
+        assertThat(pool.execute("silent"), is(nullValue()));
+        assertExited(pid);
+
+        String answer = pool.execute("b");
+        assertThat(answer, endsWith(":b"));
+        assertThat(getPid(answer), is(not(pid)));
+    }
+
+    @Test
+    public void processIsRestartedWhenItExitsDuringRequest() throws InterruptedException, ExecutionException {
+        long pid = getPid(pool.execute("a"));
+
+        assertThat(pool.execute("exit"), is(nullValue()));
+        assertExited(pid);
+
+        String answer = pool.execute("b");
+        assertThat(answer, endsWith(":b"));
+        assertThat(getPid(answer), is(not(pid)));
+    }
+
+    @Test
+    public void processIsRestartedWhenItExitedWhileIdle() throws InterruptedException, ExecutionException {
+        long pid = getPid(pool.execute("a"));
+
+        ProcessHandle.of(pid).ifPresent(ProcessHandle::destroy);
+        assertExited(pid);
+        // the exit is noticed by the process reaper thread of the JVM
+        Thread.sleep(200);
+
+        String answer = pool.execute("b");
+        assertThat(answer, endsWith(":b"));
+        assertThat(getPid(answer), is(not(pid)));
+    }
+
+    @Test
+    public void closeStopsProcesses() throws InterruptedException, ExecutionException {
+        long pid = getPid(pool.execute("a"));
+
+        pool.close();
+
+        assertExited(pid);
+        assertThat(pool.execute("b"), is(nullValue()));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.exec.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.transform.TransformationException;
+
+/**
+ * Tests the co-process mode of the {@link ExecTransformationService}.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@DisabledOnOs(OS.WINDOWS)
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class ExecTransformationServiceTest {
+
+    private @Mock @NonNullByDefault({}) ExecTransformationWhitelistWatchService whitelistWatchService;
+    private @TempDir @NonNullByDefault({}) Path tempDir;
+    private @NonNullByDefault({}) String script;
+    private @NonNullByDefault({}) ExecTransformationService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        script = ExecCoProcessPoolTest.createScript(tempDir);
+        service = new ExecTransformationService(whitelistWatchService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.deactivate();
+    }
+
+    @Test
+    public void coProcessIsSharedBetweenTransformations() throws TransformationException {
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(true);
+
+        String first = service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a");
+        String second = service.transform(ExecTransformationService.CO_PROCESS_PREFIX + " " + script, "b");
+
+        assertThat(first, endsWith(":a"));
+        assertThat(second, endsWith(":b"));
+        assertThat(ExecCoProcessPoolTest.getPid(second), is(ExecCoProcessPoolTest.getPid(first)));
+    }
+
+    @Test
+    public void coProcessIsNotStartedIfNotWhitelisted() throws TransformationException {
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(false);
+
+        assertThat(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a"), is(nullValue()));
+    }
+
+    @Test
+    public void deactivateStopsCoProcesses() throws TransformationException, InterruptedException, ExecutionException {
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(true);
+        long pid = ExecCoProcessPoolTest
+                .getPid(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a"));
+
+        service.deactivate();
+
+        ExecCoProcessPoolTest.assertExited(pid);
+    }
+
+    @Test
+    public void removingFromWhitelistStopsCoProcesses()
+            throws TransformationException, InterruptedException, ExecutionException {
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(true, false);
+        long pid = ExecCoProcessPoolTest
+                .getPid(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a"));
+
+        assertThat(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "b"), is(nullValue()));
+
+        ExecCoProcessPoolTest.assertExited(pid);
+    }
+
+    @Test
+    public void whitelistChangeStopsRemovedCoProcesses()
+            throws TransformationException, InterruptedException, ExecutionException {
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(whitelistWatchService).addWhitelistChangeListener(listener.capture());
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(true, false);
+        long pid = ExecCoProcessPoolTest
+                .getPid(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a"));
+
+        // the command was removed from the whitelist, the processes are stopped without another transformation
+        listener.getValue().run();
+
+        ExecCoProcessPoolTest.assertExited(pid);
+    }
+
+    @Test
+    public void whitelistChangeKeepsWhitelistedCoProcesses() throws TransformationException {
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(whitelistWatchService).addWhitelistChangeListener(listener.capture());
+        when(whitelistWatchService.isWhitelisted(script)).thenReturn(true);
+        long pid = ExecCoProcessPoolTest
+                .getPid(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "a"));
+
+        listener.getValue().run();
+
+        assertThat(ExecCoProcessPoolTest
+                .getPid(service.transform(ExecTransformationService.CO_PROCESS_PREFIX + script, "b")), is(pid));
+    }
+
+    @Test
+    public void deactivateRemovesWhitelistChangeListener() {
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(whitelistWatchService).addWhitelistChangeListener(listener.capture());
+
+        service.deactivate();
+
+        verify(whitelistWatchService, atLeastOnce()).removeWhitelistChangeListener(listener.getValue());
+    }
+}
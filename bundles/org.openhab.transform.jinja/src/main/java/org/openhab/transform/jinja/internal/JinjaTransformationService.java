@@ -16,9 +16,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -31,11 +34,21 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.JinjavaConfig;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
 
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by Jinja2 Expressions.
  *
+ * The parsed templates are kept in a bounded cache, as the same templates are rendered for every incoming message.
+ * The value is only parsed as JSON if the template uses {@code value_json}.
+ *
  * @author Jochen Klein - Initial contribution
  *
  */
@@ -45,7 +58,24 @@ public class JinjaTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(JinjaTransformationService.class);
 
-    private Jinjava jinjava = new Jinjava();
+    private static final String VALUE_JSON = "value_json";
+    private static final int MAX_CACHED_TEMPLATES = 256;
+
+    private final Jinjava jinjava = new Jinjava();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Node> templates = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Node> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong parses = new AtomicLong();
+    private final AtomicLong renderTimeTotal = new AtomicLong();
 
     /**
      * Transforms the input <code>value</code> by Jinja template.
@@ -58,23 +88,91 @@ public class JinjaTransformationService implements TransformationService {
     public @Nullable String transform(String template, String value) throws TransformationException {
         logger.debug("about to transform '{}' by the function '{}'", value, template);
 
+        long start = System.nanoTime();
+
         Map<String, @Nullable Object> bindings = new HashMap<>();
         bindings.put("value", value);
 
+        if (template.contains(VALUE_JSON)) {
+            try {
+                JsonNode tree = objectMapper.readTree(value);
+                bindings.put(VALUE_JSON, toObject(tree));
+            } catch (IOException e) {
+                // ok, then value_json is null...
+            }
+        }
+
+        JinjavaConfig config = jinjava.getGlobalConfig();
+        JinjavaInterpreter interpreter = new JinjavaInterpreter(jinjava,
+                new Context(jinjava.getGlobalContext(), bindings, config.getDisabled()), config);
+        JinjavaInterpreter.pushCurrent(interpreter);
+        String transformationResult;
         try {
-            JsonNode tree = new ObjectMapper().readTree(value);
-            bindings.put("value_json", toObject(tree));
-        } catch (IOException e) {
-            // ok, then value_json is null...
+            transformationResult = interpreter.render(getParsedTemplate(template, interpreter));
+        } finally {
+            JinjavaInterpreter.popCurrent();
         }
+        throwFatalErrors(template, interpreter.getErrors());
 
-        String transformationResult = jinjava.render(template, bindings);
+        long time = System.nanoTime() - start;
+        renders.incrementAndGet();
+        renderTimeTotal.addAndGet(time);
 
         logger.debug("transformation resulted in '{}'", transformationResult);
 
         return transformationResult;
     }
 
+    /**
+     * @return the cached tree of the template, the template is parsed by the interpreter if it is not cached yet
+     */
+    private Node getParsedTemplate(String template, JinjavaInterpreter interpreter) {
+        synchronized (templates) {
+            Node node = templates.get(template);
+            if (node != null) {
+                return node;
+            }
+        }
+        Node node = interpreter.parse(template);
+        parses.incrementAndGet();
+        // templates with syntax errors are not cached, they fail again on the next call
+        throwFatalErrors(template, interpreter.getErrors());
+        synchronized (templates) {
+            templates.put(template, node);
+        }
+        return node;
+    }
+
+    private static void throwFatalErrors(String template, List<TemplateError> errors) {
+        List<TemplateError> fatalErrors = errors.stream().filter(error -> error.getSeverity() == ErrorType.FATAL)
+                .collect(Collectors.toList());
+        if (!fatalErrors.isEmpty()) {
+            throw new FatalTemplateErrorsException(template, fatalErrors);
+        }
+    }
+
+    /**
+     * @return the number of rendered templates
+     */
+    public long getRenderCount() {
+        return renders.get();
+    }
+
+    /**
+     * @return the number of parsed templates, i.e. the renders that did not find the template in the cache
+     */
+    public long getParseCount() {
+        return parses.get();
+    }
+
+    /**
+     * @return the average duration of a transformation in microseconds
+     */
+    public double getAverageRenderTime() {
+        long count = renders.get();
+        return count == 0 ? 0 : (double) renderTimeTotal.get() / count / 1000;
+    }
+
     private static @Nullable Object toObject(JsonNode node) {
         switch (node.getNodeType()) {
             case ARRAY: {
@@ -59,4 +59,16 @@ public class JinjaTransformationServiceTest {
         // Asserts
         assertEquals("Hello world!", transformedResponse);
     }
+
+    @Test
+    public void testParsedTemplateIsReused() throws TransformationException {
+        String template = "{% if value_json.state == 'ON' %}on{% else %}{{ value_json.state | lower }}{% endif %}";
+
+        assertEquals("on", processor.transform(template, "{\"state\":\"ON\"}"));
+        assertEquals("off", processor.transform(template, "{\"state\":\"OFF\"}"));
+        assertEquals("Hello world!", processor.transform("Hello {{ value }}!", "world"));
+
+        assertEquals(3, processor.getRenderCount());
+        assertEquals(2, processor.getParseCount());
+    }
 }
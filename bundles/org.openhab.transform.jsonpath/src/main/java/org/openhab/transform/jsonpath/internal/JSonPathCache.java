@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Caches compiled {@link JsonPath} expressions and, for a short time, parsed JSON documents.
+ *
+ * Bindings often pass the same payload to several channels with different expressions, the document cache lets
+ * all of them read from a single parse. Parsed documents are only read, never modified.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class JSonPathCache {
+
+    private static class CachedDocument {
+        final Object document;
+        final long expires;
+
+        CachedDocument(Object document, long expires) {
+            this.document = document;
+            this.expires = expires;
+        }
+    }
+
+    private final Configuration configuration = Configuration.defaultConfiguration();
+
+    private final int maxPaths;
+    private final int maxDocuments;
+    private final long documentTtl;
+
+    private final Map<String, JsonPath> paths = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CachedDocument> documents = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong parses = new AtomicLong();
+    private final AtomicLong parsesSaved = new AtomicLong();
+
+    /**
+     * @param maxPaths maximum number of compiled expressions
+     * @param maxDocuments maximum number of parsed documents
+     * @param documentTtl time in milliseconds a parsed document is reused
+     */
+    public JSonPathCache(int maxPaths, int maxDocuments, long documentTtl) {
+        this.maxPaths = maxPaths;
+        this.maxDocuments = maxDocuments;
+        this.documentTtl = documentTtl;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @throws com.jayway.jsonpath.InvalidPathException if the expression is invalid
+     */
+    public JsonPath getPath(String expression) {
+        synchronized (paths) {
+            JsonPath path = paths.get(expression);
+            if (path != null) {
+                return path;
+            }
+        }
+        JsonPath path = JsonPath.compile(expression);
+        synchronized (paths) {
+            paths.put(expression, path);
+            if (paths.size() > maxPaths) {
+                Iterator<JsonPath> eldest = paths.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Returns the parsed document for the given JSON, parsing it only if it was not parsed recently.
+     *
+     * @throws com.jayway.jsonpath.InvalidJsonException if the source is no valid JSON
+     */
+    public Object getDocument(String source) {
+        long now = System.currentTimeMillis();
+        synchronized (documents) {
+            CachedDocument cached = documents.get(source);
+            if (cached != null) {
+                if (cached.expires > now) {
+                    parsesSaved.incrementAndGet();
+                    return cached.document;
+                }
+                documents.remove(source);
+            }
+        }
+        parses.incrementAndGet();
+        Object document = configuration.jsonProvider().parse(source);
+        if (documentTtl > 0) {
+            synchronized (documents) {
+                documents.put(source, new CachedDocument(document, now + documentTtl));
+                purgeDocuments(now);
+            }
+        }
+        return document;
+    }
+
+    private void purgeDocuments(long now) {
+        Iterator<CachedDocument> it = documents.values().iterator();
+        while (it.hasNext()) {
+            CachedDocument cached = it.next();
+            if (documents.size() > maxDocuments || cached.expires <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of JSON documents parsed
+     */
+    public long getParses() {
+        return parses.get();
+    }
+
+    /**
+     * @return the number of times a recently parsed document was reused instead of parsing it again
+     */
+    public long getParsesSaved() {
+        return parsesSaved.get();
+    }
+}
@@ -41,8 +41,14 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    private static final int MAX_PATHS = 500;
+    private static final int MAX_DOCUMENTS = 16;
+    private static final long DOCUMENT_TTL = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final JSonPathCache cache = new JSonPathCache(MAX_PATHS, MAX_DOCUMENTS, DOCUMENT_TTL);
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,8 +66,11 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
-            logger.debug("transformation resulted in '{}'", transformationResult);
+            // the compiled expression and the parsed document are reused, e.g. for several channels of one payload
+            JsonPath jsonPath = cache.getPath(jsonPathExpression);
+            Object transformationResult = jsonPath.read(cache.getDocument(source), cache.getConfiguration());
+            logger.debug("transformation resulted in '{}' ({} documents parsed, {} parses saved)",
+                    transformationResult, cache.getParses(), cache.getParsesSaved());
             if (transformationResult == null) {
                 return null;
             } else if (transformationResult instanceof List) {
@@ -76,6 +85,13 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    /**
+     * @return the cache of compiled expressions and parsed documents, which also counts the parses saved
+     */
+    public JSonPathCache getCache() {
+        return cache;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
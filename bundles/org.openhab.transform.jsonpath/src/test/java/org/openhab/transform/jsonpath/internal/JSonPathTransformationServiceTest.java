@@ -127,4 +127,14 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testDocumentParsedOnce() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertEquals("alice", processor.transform("$[1].name", jsonArray));
+        assertEquals("2", processor.transform("$[1].id", jsonArray));
+
+        assertEquals(1, processor.getCache().getParses());
+        assertEquals(2, processor.getCache().getParsesSaved());
+    }
 }
@@ -75,4 +75,18 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_compiledOnce() throws TransformationException {
+        // method under test
+        processor.transform("s/([A-Z]+)([0-9]+),*/var$1=$2 /g", "X12,Y54");
+        processor.transform(".*?<current_conditions>.*?<temp_c data=\"(.*?)\".*", source);
+        String transformedResponse = processor.transform("s/([A-Z]+)([0-9]+),*/var$1=$2 /g", "A1,B2");
+
+        // Asserts
+        assertEquals("varA=1 varB=2 ", transformedResponse);
+        assertEquals(2, processor.getCache().getMisses());
+        assertEquals(1, processor.getCache().getHits());
+        assertEquals(2, processor.getCache().size());
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Immutable lookup table of a scale file.
+ *
+ * All bounds of the ranges split the number line into single points and the open intervals between them. For each
+ * of these the label of the first matching range (in the order of the file) is computed once when the file is
+ * loaded, so a lookup is a binary search over the bounds, also for overlapping or open ranges.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class ScaleIndex {
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final String format;
+    private final @Nullable String nonNumeric;
+
+    /** the distinct bounds of all ranges in ascending order */
+    private final BigDecimal[] bounds;
+    /** the label for a value equal to bounds[i] */
+    private final @Nullable String[] boundLabels;
+    /** the label for a value between bounds[i - 1] and bounds[i], the first and last entries are unbounded */
+    private final @Nullable String[] intervalLabels;
+
+    /**
+     * @param ranges the ranges with their labels in the order of the file
+     * @param format the presentation format
+     * @param nonNumeric the label for non numeric values, if any
+     */
+    public ScaleIndex(Map<Range, String> ranges, String format, @Nullable String nonNumeric) {
+        this.format = format;
+        this.nonNumeric = nonNumeric;
+
+        TreeSet<BigDecimal> distinctBounds = new TreeSet<>();
+        for (Range range : ranges.keySet()) {
+            if (range.min != null) {
+                distinctBounds.add(range.min);
+            }
+            if (range.max != null) {
+                distinctBounds.add(range.max);
+            }
+        }
+        bounds = distinctBounds.toArray(new BigDecimal[0]);
+        boundLabels = new String[bounds.length];
+        intervalLabels = new String[bounds.length + 1];
+
+        for (int i = 0; i < bounds.length; i++) {
+            boundLabels[i] = findFirst(ranges, bounds[i]);
+        }
+        for (int i = 0; i <= bounds.length; i++) {
+            BigDecimal inside;
+            if (bounds.length == 0) {
+                inside = BigDecimal.ZERO;
+            } else if (i == 0) {
+                inside = bounds[0].subtract(BigDecimal.ONE);
+            } else if (i == bounds.length) {
+                inside = bounds[i - 1].add(BigDecimal.ONE);
+            } else {
+                inside = bounds[i - 1].add(bounds[i]).divide(TWO);
+            }
+            intervalLabels[i] = findFirst(ranges, inside);
+        }
+    }
+
+    private static @Nullable String findFirst(Map<Range, String> ranges, BigDecimal value) {
+        for (Map.Entry<Range, String> entry : ranges.entrySet()) {
+            if (entry.getKey().contains(value)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the label of the first range containing the value, or null if there is none
+     */
+    public @Nullable String lookup(BigDecimal value) {
+        int index = Arrays.binarySearch(bounds, value);
+        return index >= 0 ? boundLabels[index] : intervalLabels[-index - 1];
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public @Nullable String getNonNumeric() {
+        return nonNumeric;
+    }
+}
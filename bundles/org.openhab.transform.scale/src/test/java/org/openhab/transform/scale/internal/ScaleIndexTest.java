@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author openHAB Contributors - Initial contribution
+ */
+public class ScaleIndexTest {
+
+    private static BigDecimal value(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    public void testOverlappingRangesFirstDefinedWins() {
+        // [0..20]=first, [10..30]=second
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.closed(value("0"), value("20")), "first");
+        ranges.put(Range.closed(value("10"), value("30")), "second");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("first", index.lookup(value("5")));
+        assertEquals("first", index.lookup(value("10")));
+        assertEquals("first", index.lookup(value("15")));
+        assertEquals("first", index.lookup(value("20")));
+        assertEquals("second", index.lookup(value("20.001")));
+        assertEquals("second", index.lookup(value("30")));
+    }
+
+    @Test
+    public void testOverlappingRangesInFileOrder() {
+        // [10..30]=second, [0..20]=first
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.closed(value("10"), value("30")), "second");
+        ranges.put(Range.closed(value("0"), value("20")), "first");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("first", index.lookup(value("9.999")));
+        assertEquals("second", index.lookup(value("10")));
+        assertEquals("second", index.lookup(value("15")));
+        assertEquals("second", index.lookup(value("20")));
+    }
+
+    @Test
+    public void testExclusiveBounds() {
+        // [0..10[=low, ]10..20[=middle, [20..30]=high
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.closedOpen(value("0"), value("10")), "low");
+        ranges.put(Range.open(value("10"), value("20")), "middle");
+        ranges.put(Range.closed(value("20"), value("30")), "high");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("low", index.lookup(value("0")));
+        assertEquals("low", index.lookup(value("9.999")));
+        // excluded by both ranges
+        assertNull(index.lookup(value("10")));
+        assertEquals("middle", index.lookup(value("10.001")));
+        assertEquals("middle", index.lookup(value("19.999")));
+        assertEquals("high", index.lookup(value("20")));
+        assertEquals("high", index.lookup(value("30")));
+    }
+
+    @Test
+    public void testExclusiveBoundOfOverlappingRange() {
+        // ]0..10[=inner, [0..10]=outer
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.open(value("0"), value("10")), "inner");
+        ranges.put(Range.closed(value("0"), value("10")), "outer");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("outer", index.lookup(value("0")));
+        assertEquals("inner", index.lookup(value("0.001")));
+        assertEquals("inner", index.lookup(value("9.999")));
+        assertEquals("outer", index.lookup(value("10")));
+    }
+
+    @Test
+    public void testOpenRanges() {
+        // ]..0]=low, ]0..100[=middle, [100..]=high
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.atMost(value("0")), "low");
+        ranges.put(Range.open(value("0"), value("100")), "middle");
+        ranges.put(Range.atLeast(value("100")), "high");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("low", index.lookup(value("-1000000")));
+        assertEquals("low", index.lookup(value("0")));
+        assertEquals("middle", index.lookup(value("0.001")));
+        assertEquals("middle", index.lookup(value("99.999")));
+        assertEquals("high", index.lookup(value("100")));
+        assertEquals("high", index.lookup(value("1000000")));
+    }
+
+    @Test
+    public void testOpenRangesWithExclusiveBounds() {
+        // ]..0[=below, ]100..]=above
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.lessThan(value("0")), "below");
+        ranges.put(Range.greaterThan(value("100")), "above");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("below", index.lookup(value("-0.001")));
+        assertNull(index.lookup(value("0")));
+        assertNull(index.lookup(value("100")));
+        assertEquals("above", index.lookup(value("100.001")));
+    }
+
+    @Test
+    public void testCatchAllRange() {
+        // ]..]=all
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.all(), "all");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertEquals("all", index.lookup(value("-10")));
+        assertEquals("all", index.lookup(value("0")));
+        assertEquals("all", index.lookup(value("10")));
+    }
+
+    @Test
+    public void testValueMatchingNoRange() {
+        // [0..10]=low, [20..30]=high
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.closed(value("0"), value("10")), "low");
+        ranges.put(Range.closed(value("20"), value("30")), "high");
+        ScaleIndex index = new ScaleIndex(ranges, "%label%", null);
+
+        assertNull(index.lookup(value("-0.001")));
+        assertNull(index.lookup(value("15")));
+        assertNull(index.lookup(value("30.001")));
+    }
+
+    @Test
+    public void testNoRanges() {
+        ScaleIndex index = new ScaleIndex(new LinkedHashMap<>(), "%label%", "Non Numeric");
+
+        assertNull(index.lookup(value("0")));
+        assertEquals("Non Numeric", index.getNonNumeric());
+        assertEquals("%label%", index.getFormat());
+    }
+}
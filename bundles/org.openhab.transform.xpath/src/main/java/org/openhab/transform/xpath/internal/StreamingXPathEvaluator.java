@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xpath.internal;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Evaluates simple XPath expressions with a StAX parser, without building a DOM of the whole document.
+ *
+ * Supported are location paths of element names without namespace prefix, starting with {@code /} or {@code //} and
+ * optionally ending with an attribute {@code @name} or {@code text()}, e.g. {@code //AbsoluteHigh/azimuth/text()}.
+ * Like an evaluation as {@link javax.xml.xpath.XPathConstants#STRING}, the result is the string value of the first
+ * matching node in document order, or an empty string if no node matches.
+ *
+ * @author openHAB Contributors - Initial contribution
+ */
+@NonNullByDefault
+public class StreamingXPathEvaluator {
+
+    private static final String NAME = "[A-Za-z_][\\w.-]*";
+    private static final Pattern SIMPLE_PATH = Pattern
+            .compile("(//?)(" + NAME + "(?:/" + NAME + ")*)(?:/(?:@(" + NAME + ")|(text\\(\\))))?");
+
+    private final boolean descendant;
+    private final String[] elements;
+    private final @Nullable String attribute;
+    private final boolean text;
+
+    private StreamingXPathEvaluator(boolean descendant, String[] elements, @Nullable String attribute,
+            boolean text) {
+        this.descendant = descendant;
+        this.elements = elements;
+        this.attribute = attribute;
+        this.text = text;
+    }
+
+    /**
+     * @param expression the XPath expression
+     * @return an evaluator for the expression, or null if it is not a simple path
+     */
+    public static @Nullable StreamingXPathEvaluator compile(String expression) {
+        Matcher matcher = SIMPLE_PATH.matcher(expression.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new StreamingXPathEvaluator("//".equals(matcher.group(1)), matcher.group(2).split("/"),
+                matcher.group(3), matcher.group(4) != null);
+    }
+
+    /**
+     * Evaluates the expression, reading the document only up to the first matching node.
+     *
+     * @param factory the factory for the parser
+     * @param source the XML document
+     * @return the string value of the first matching node, or an empty string
+     * @throws XMLStreamException if the document cannot be parsed up to the matching node
+     */
+    public String evaluate(XMLInputFactory factory, String source) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(source));
+        try {
+            // local names of the open elements, an empty string for elements within a namespace
+            List<String> path = new ArrayList<>();
+            // depth of the matching element whose text is collected
+            int matchDepth = -1;
+            StringBuilder value = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String namespace = reader.getNamespaceURI();
+                        path.add(namespace == null || namespace.isEmpty() ? reader.getLocalName() : "");
+                        if (matchDepth < 0 && matches(path)) {
+                            String attribute = this.attribute;
+                            if (attribute == null) {
+                                matchDepth = path.size();
+                            } else {
+                                String attributeValue = getAttributeValue(reader, attribute);
+                                if (attributeValue != null) {
+                                    return attributeValue;
+                                }
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (matchDepth > 0) {
+                            if (text) {
+                                if (path.size() == matchDepth) {
+                                    return reader.getText();
+                                }
+                            } else {
+                                value.append(reader.getText());
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (path.size() == matchDepth) {
+                            if (!text) {
+                                return value.toString();
+                            }
+                            // the element has no text, text() continues with the next matching element
+                            matchDepth = -1;
+                        }
+                        path.remove(path.size() - 1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return "";
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean matches(List<String> path) {
+        int offset = path.size() - elements.length;
+        if (offset < 0 || (!descendant && offset != 0)) {
+            return false;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (!elements[i].equals(path.get(offset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static @Nullable String getAttributeValue(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            if ((namespace == null || namespace.isEmpty()) && name.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+}
@@ -12,37 +12,94 @@
  */
 package org.openhab.transform.xpath.internal;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPath;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XPath Expressions.
  *
+ * The parser factory is configured once and its document builders are reused. Compiled expressions are kept in a
+ * bounded cache. With the {@code streaming} option, simple paths are evaluated by a {@link StreamingXPathEvaluator}
+ * without building the DOM of the document.
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 @NonNullByDefault
-@Component(property = { "openhab.transform=XPATH" })
+@Component(configurationPid = "org.openhab.xpath", property = { "openhab.transform=XPATH" })
 public class XPathTransformationService implements TransformationService {
 
+    public static final String CONFIG_STREAMING = "streaming";
+
+    private static final int MAX_POOLED_BUILDERS = 16;
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+    private static final int MAX_POOLED_EXPRESSIONS = 4;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    private final BlockingQueue<DocumentBuilder> builders = new ArrayBlockingQueue<>(MAX_POOLED_BUILDERS);
+    private final Map<String, CompiledExpression> expressions = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, CompiledExpression> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+    private final XPathFactory xpathFactory = XPathFactory.newInstance();
+    private final XMLInputFactory xmlInputFactory;
+    private @Nullable DocumentBuilderFactory domFactory;
+
+    private volatile boolean streaming;
+
+    public XPathTransformationService() {
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    @Activate
+    protected void activate(@Nullable Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    protected void modified(@Nullable Map<String, Object> config) {
+        Object value = config == null ? null : config.get(CONFIG_STREAMING);
+        streaming = value != null && Boolean.parseBoolean(value.toString());
+        logger.debug("Streaming evaluation of simple XPath expressions is {}", streaming ? "enabled" : "disabled");
+    }
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -51,10 +108,71 @@ public class XPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-        StringReader stringReader = null;
+        CompiledExpression compiled = getCompiledExpression(xpathExpression);
+
+        StreamingXPathEvaluator evaluator = compiled.evaluator;
+        if (streaming && evaluator != null) {
+            try {
+                String transformationResult = evaluator.evaluate(xmlInputFactory, source);
+                logger.debug("transformation resulted in '{}'", transformationResult);
+                return transformationResult;
+            } catch (XMLStreamException e) {
+                logger.debug("Streaming evaluation of '{}' failed, using the DOM: {}", xpathExpression,
+                        e.getMessage());
+            }
+        }
 
+        XPathExpression expr = null;
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+            Document doc = parse(source);
+            expr = compiled.borrow();
+
+            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+
+            logger.debug("transformation resulted in '{}'", transformationResult);
+
+            return transformationResult;
+        } catch (Exception e) {
+            throw new TransformationException("transformation throws exceptions", e);
+        } finally {
+            if (expr != null) {
+                compiled.release(expr);
+            }
+        }
+    }
+
+    private CompiledExpression getCompiledExpression(String xpathExpression) throws TransformationException {
+        synchronized (expressions) {
+            CompiledExpression compiled = expressions.get(xpathExpression);
+            if (compiled == null) {
+                compiled = new CompiledExpression(xpathExpression);
+                // compile once to fail early and not to cache invalid expressions
+                compiled.release(compiled.borrow());
+                expressions.put(xpathExpression, compiled);
+            }
+            return compiled;
+        }
+    }
+
+    private Document parse(String source) throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder builder = builders.poll();
+        if (builder == null) {
+            builder = newDocumentBuilder();
+        }
+        try (StringReader stringReader = new StringReader(source)) {
+            InputSource inputSource = new InputSource(stringReader);
+            inputSource.setEncoding("UTF-8");
+            return builder.parse(inputSource);
+        } finally {
+            builder.reset();
+            builders.offer(builder);
+        }
+    }
+
+    private synchronized DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory domFactory = this.domFactory;
+        if (domFactory == null) {
+            domFactory = DocumentBuilderFactory.newInstance();
             // see https://cheatsheetseries.owasp.org/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.html
             domFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
             domFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
@@ -63,27 +181,45 @@ public class XPathTransformationService implements TransformationService {
             domFactory.setExpandEntityReferences(false);
             domFactory.setNamespaceAware(true);
             domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-
-            stringReader = new StringReader(source);
-            InputSource inputSource = new InputSource(stringReader);
-            inputSource.setEncoding("UTF-8");
-
-            Document doc = builder.parse(inputSource);
+            this.domFactory = domFactory;
+        }
+        return domFactory.newDocumentBuilder();
+    }
 
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+    /**
+     * A compiled expression. {@link XPathExpression}s are not thread-safe, so a few instances are pooled.
+     */
+    private class CompiledExpression {
+        private final String expression;
+        private final @Nullable StreamingXPathEvaluator evaluator;
+        private final Queue<XPathExpression> pool = new ArrayDeque<>(MAX_POOLED_EXPRESSIONS);
 
-            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+        CompiledExpression(String expression) {
+            this.expression = expression;
+            this.evaluator = StreamingXPathEvaluator.compile(expression);
+        }
 
-            logger.debug("transformation resulted in '{}'", transformationResult);
+        XPathExpression borrow() throws TransformationException {
+            synchronized (pool) {
+                XPathExpression expr = pool.poll();
+                if (expr != null) {
+                    return expr;
+                }
+            }
+            try {
+                synchronized (xpathFactory) {
+                    return xpathFactory.newXPath().compile(expression);
+                }
+            } catch (XPathExpressionException e) {
+                throw new TransformationException("transformation throws exceptions", e);
+            }
+        }
 
-            return transformationResult;
-        } catch (Exception e) {
-            throw new TransformationException("transformation throws exceptions", e);
-        } finally {
-            if (stringReader != null) {
-                stringReader.close();
+        void release(XPathExpression expr) {
+            synchronized (pool) {
+                if (pool.size() < MAX_POOLED_EXPRESSIONS) {
+                    pool.add(expr);
+                }
             }
         }
     }
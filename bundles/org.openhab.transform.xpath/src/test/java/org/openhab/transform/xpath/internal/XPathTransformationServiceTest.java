@@ -14,6 +14,8 @@ package org.openhab.transform.xpath.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Map;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -38,4 +40,32 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testStreamingGivesSameResults() throws TransformationException {
+        String xml = "<?xml version=\"1.0\"?><PTZStatus version=\"2.0\"><AbsoluteHigh><elevation/>"
+                + "<azimuth>450</azimuth><absoluteZoom>1<![CDATA[0]]></absoluteZoom></AbsoluteHigh>"
+                + "<AbsoluteHigh><elevation>5</elevation></AbsoluteHigh></PTZStatus>";
+        String[] expressions = { "//current_conditions/temp_c/@data", "/xml_api_reply/weather/@row",
+                "//forecast_conditions/high/@data", "//unknown/@data", "//forecast_information/city/text()" };
+        String[] xmlExpressions = { "/PTZStatus/AbsoluteHigh/azimuth/text()", "//absoluteZoom",
+                "//elevation/text()", "//AbsoluteHigh", "/AbsoluteHigh", "//PTZStatus/@version" };
+
+        XPathTransformationService streamingProcessor = new XPathTransformationService();
+        streamingProcessor.activate(Map.of(XPathTransformationService.CONFIG_STREAMING, "true"));
+
+        for (String expression : expressions) {
+            assertEquals(processor.transform(expression, source), streamingProcessor.transform(expression, source),
+                    expression);
+        }
+        for (String expression : xmlExpressions) {
+            assertEquals(processor.transform(expression, xml), streamingProcessor.transform(expression, xml),
+                    expression);
+        }
+    }
+
+    @Test
+    public void testInvalidExpression() {
+        assertThrows(TransformationException.class, () -> processor.transform("//current_conditions[", source));
+    }
 }
@@ -14,20 +14,87 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.xml.transform.Templates;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 import org.openhab.core.transform.TransformationException;
+import org.osgi.framework.BundleContext;
 
 /**
  * @author Thomas.Eichstaedt-Engelen
  */
+@ExtendWith(MockitoExtension.class)
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
-    private XsltTransformationService processor;
+    private static final String BASE_FOLDER = "target";
+    private static final String SRC_FOLDER = "conf";
+    private static final String CONFIG_FOLDER = BASE_FOLDER + File.separator + SRC_FOLDER;
+    private static final String XSL_FILENAME = "http/google_weather.xsl";
+
+    private @Mock BundleContext bundleContext;
+
+    private TestableXsltTransformationService processor;
+
+    private static class TestableXsltTransformationService extends XsltTransformationService {
+        private final AtomicInteger loadCount = new AtomicInteger();
+
+        @Override
+        protected String getSourcePath() {
+            return BASE_FOLDER + File.separator + super.getSourcePath();
+        }
+
+        @Override
+        protected Locale getLocale() {
+            return Locale.US;
+        }
+
+        @Override
+        protected Templates internalLoadTransform(String filename) throws TransformationException {
+            loadCount.incrementAndGet();
+            return super.internalLoadTransform(filename);
+        }
+
+        @Override
+        public void activate(BundleContext context) {
+            super.activate(context);
+        }
+
+        @Override
+        public void deactivate() {
+            super.deactivate();
+        }
+    }
 
     @BeforeEach
-    public void init() {
-        processor = new XsltTransformationService();
+    public void init() throws IOException {
+        copyDirectory(Paths.get(SRC_FOLDER), Paths.get(CONFIG_FOLDER));
+        processor = new TestableXsltTransformationService();
+        processor.activate(bundleContext);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        processor.deactivate();
+        try (Stream<Path> paths = Files.walk(Paths.get(CONFIG_FOLDER))) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
     }
 
     @Test
@@ -38,4 +105,67 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformByCachedXSLT() throws TransformationException {
+        processor.transform("http/google_weather.xsl", source);
+
+        // method under test
+        String transformedResponse = processor.transform("http/google_weather.xsl",
+                source.replace("<temp_c data=\"8\"/>", "<temp_c data=\"10\"/>"));
+
+        // Asserts
+        assertEquals("10", transformedResponse);
+        assertEquals(1, processor.loadCount.get());
+    }
+
+    @Test
+    public void testTransformByChangedXSLT() throws Exception {
+        assertEquals("8", processor.transform(XSL_FILENAME, source));
+        assertEquals(1, processor.loadCount.get());
+
+        Path xsl = Paths.get(CONFIG_FOLDER, "transform", XSL_FILENAME);
+        Files.writeString(xsl, Files.readString(xsl).replace("temp_c", "temp_f"));
+
+        // the file watcher removes the changed stylesheet from the cache, so it is compiled again
+        waitForAssert(() -> {
+            assertEquals("46", processor.transform(XSL_FILENAME, source));
+            return null;
+        }, 10000, 100);
+        // the file may also have been compiled while it was written
+        assertTrue(processor.loadCount.get() >= 2);
+    }
+
+    @Test
+    public void testTransformByMissingXSLT() {
+        assertThrows(TransformationException.class, () -> processor.transform("http/missing.xsl", source));
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path copy = target.resolve(source.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private void waitForAssert(Callable<Void> assertion, int timeout, int sleepTime) throws Exception {
+        int waitingTime = 0;
+        while (waitingTime < timeout) {
+            try {
+                assertion.call();
+                return;
+            } catch (AssertionError | TransformationException e) {
+                // the file may be read while it is written
+                waitingTime += sleepTime;
+                Thread.sleep(sleepTime);
+            }
+        }
+        assertion.call();
+    }
 }